@@ -2,8 +2,11 @@ package io.github.manzurola.aligner;
 
 import io.github.manzurola.aligner.metrics.*;
 
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
 
 /**
  * Base interface for aligner implementations. <br> The factory methods support two different aligners - Levenshtein
@@ -25,12 +28,120 @@ public interface Aligner<T> {
 
     Alignment<T> align(List<T> source, List<T> target);
 
+    /**
+     * Align source and target only if the cost of the alignment does not exceed {@code maxCost}. Implementations may
+     * stop early, once it is certain that the bound cannot be met, and only compute the cells of the matrix that can
+     * stay within it.
+     * <p>
+     * Costs must not be negative for the bound to be applied early.
+     *
+     * @param maxCost the highest acceptable cost, inclusive.
+     * @return the alignment, or an empty optional if its cost exceeds {@code maxCost}.
+     */
+    default Optional<Alignment<T>> alignWithin(List<T> source, List<T> target, double maxCost) {
+        return Optional.of(align(source, target)).filter(alignment -> alignment.cost() <= maxCost);
+    }
+
+    /**
+     * Compute the cost of aligning source and target without building the edits of the alignment. Implementations may
+     * use less memory than {@link #align(List, List)} since no traceback is needed.
+     *
+     * @return the score of the alignment, equal in cost, distance and ratio to the result of {@link #align(List,
+     * List)}.
+     */
+    default Score score(List<T> source, List<T> target) {
+        return Score.of(align(source, target));
+    }
+
+    /**
+     * The total cost of aligning source and target, same as {@code score(source, target).cost()}.
+     */
+    default double cost(List<T> source, List<T> target) {
+        return score(source, target).cost();
+    }
+
+    /**
+     * The normalized cost of aligning source and target, same as {@code score(source, target).distance()}.
+     */
+    default double distance(List<T> source, List<T> target) {
+        return score(source, target).distance();
+    }
+
+    /**
+     * Align every pair on the {@link ForkJoinPool#commonPool() common pool}, with as many workers as its parallelism.
+     *
+     * @return the alignment of each pair, in the order of {@code pairs}.
+     * @see #alignAll(List, Executor, int)
+     */
+    default List<Alignment<T>> alignAll(List<Pair<T>> pairs) {
+        return alignAll(pairs, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Align every pair with {@code workers} workers, one on the calling thread and the rest on {@code executor}. Pairs
+     * are aligned largest first, each worker taking the next one as soon as it is free, and each worker reuses the
+     * storage of its matrices from one pair to the next. The aligner must be safe to use from several threads, as
+     * those of {@link #builder()} are.
+     *
+     * @return the alignment of each pair, in the order of {@code pairs}.
+     */
+    default List<Alignment<T>> alignAll(List<Pair<T>> pairs, Executor executor, int workers) {
+        Object[] alignments = new Object[pairs.size()];
+        alignAll(pairs, executor, workers, (alignment, index) -> alignments[index] = alignment);
+        @SuppressWarnings("unchecked")
+        List<Alignment<T>> result = (List<Alignment<T>>) (List<?>) Arrays.asList(alignments);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Align every pair as {@link #alignAll(List, Executor, int)} does, passing each alignment to {@code consumer} along
+     * with the index of its pair as soon as it is done. The consumer is called from several threads at once, in no
+     * particular order.
+     */
+    default void alignAll(List<Pair<T>> pairs,
+                          Executor executor,
+                          int workers,
+                          ObjIntConsumer<? super Alignment<T>> consumer) {
+        Objects.requireNonNull(pairs);
+        Objects.requireNonNull(executor);
+        Objects.requireNonNull(consumer);
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        Batch.run(this, pairs, executor, workers, consumer);
+    }
+
+    /**
+     * Wrap an aligner with a cache of the alignments of up to {@code maxEntries} pairs, keyed by the contents of the
+     * lists and evicted least recently used first. The cached aligner is safe to share between threads if the wrapped
+     * one is.
+     *
+     * @throws IllegalArgumentException if {@code maxEntries} is not positive.
+     */
+    static <T> CachedAligner<T> cached(Aligner<T> aligner, int maxEntries) {
+        return cached(aligner, maxEntries, false);
+    }
+
+    /**
+     * Wrap an aligner with a cache as {@link #cached(Aligner, int)} does. If {@code symmetric}, the costs of the
+     * aligner are taken to be the same in both directions: deleting a token costs as much as inserting it, and
+     * substituting or transposing costs the same either way. A pair is then also served by inverting the cached
+     * alignment of the reverse pair, see {@link Alignment#invert()}.
+     *
+     * @throws IllegalArgumentException if {@code maxEntries} is not positive.
+     */
+    static <T> CachedAligner<T> cached(Aligner<T> aligner, int maxEntries, boolean symmetric) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("max entries must be positive");
+        }
+        return new CachedAlignerImpl<>(aligner, maxEntries, symmetric);
+    }
+
     /**
      * Get a new levenshtein aligner using {@code T::equals} as the equalizer.
      */
     static <T> Aligner<T> levenshtein() {
         return Aligner.<T>builder()
-                .setEqualizer(T::equals)
                 .build();
     }
 
@@ -65,7 +176,6 @@ public interface Aligner<T> {
      */
     static <T extends Comparable<T>> Aligner<T> damerauLevenshtein() {
         return Aligner.<T>builder()
-                .setEqualizer(T::equals)
                 .setComparator(Comparator.naturalOrder())
                 .build();
     }
@@ -117,16 +227,51 @@ public interface Aligner<T> {
 
     /**
      * Get a new builder to create a custom aligner based on the damerau levenshtein algorithm. The builder is
-     * instantiated with default DL values for costs, an equalizer the uses T::equals and a null comparator (no
-     * transpose).
+     * instantiated with default DL values for costs, an equalizer the uses T::equals, a null comparator (no
+     * transpose) and the {@link Strategy#FULL_MATRIX} strategy.
      */
     static <T> Aligner.Builder<T> builder() {
         return new BuilderImpl<T>()
-                .setEqualizer(T::equals)
-                .setDeleteCost((s) -> 1.0)
-                .setInsertCost((s) -> 1.0)
-                .setSubstituteCost((s, t) -> 1.0)
-                .setTransposeCost((s, t) -> s.length - 1.0);
+                .setEqualizer(DefaultMetrics.equalizer())
+                .setDeleteCost(DefaultMetrics.deleteCost())
+                .setInsertCost(DefaultMetrics.insertCost())
+                .setSubstituteCost(DefaultMetrics.substituteCost())
+                .setTransposeCost(DefaultMetrics.transposeCost())
+                .setMaxTranspositionSpan(Integer.MAX_VALUE)
+                .setTrimCommonPrefix(false)
+                .setMemoizeSubstituteCost(false)
+                .setParallelism(1)
+                .setPool(ForkJoinPool.commonPool())
+                .setTileSize(256)
+                .setMaxRetainedCells(1 << 20)
+                .setStrategy(Strategy.FULL_MATRIX);
+    }
+
+    /**
+     * The algorithm an aligner uses to find the alignment of two lists.
+     */
+    enum Strategy {
+        /**
+         * Fill the full (m+1)x(n+1) cost matrix and backtrack from its bottom right cell. O(m*n) time and memory.
+         */
+        FULL_MATRIX,
+        /**
+         * Hirschberg's divide and conquer, which recovers an optimal alignment in O(m+n) memory at about twice the time
+         * of {@link #FULL_MATRIX}. Suited to very long lists. Transpositions are only detected within the small sub
+         * problems at the leaves of the recursion, never across the rows where the lists are split, and the common
+         * prefix is not trimmed. Otherwise the cost is that of {@link #FULL_MATRIX} up to rounding.
+         */
+        HIRSCHBERG,
+        /**
+         * Split the lists at anchors, tokens that occur exactly once in each list, patience diff style, and align the
+         * gaps between them with {@link #FULL_MATRIX} in parallel on the {@link Builder#setPool(ForkJoinPool) pool}.
+         * Turns one large alignment of mostly similar lists into many small ones, but may cost more than {@link
+         * #FULL_MATRIX} when an anchor is not on an optimal path.
+         * <p>
+         * Tokens are hashed by the key of {@link Builder#setKey(Function)}, or by themselves with the default
+         * equalizer. With a custom equalizer and no key, no anchors are found.
+         */
+        ANCHORED
     }
 
     interface Builder<T> {
@@ -140,9 +285,106 @@ public interface Aligner<T> {
 
         Builder<T> setEqualizer(Equalizer<T> equalizer);
 
+        /**
+         * Intern tokens by key before aligning them. Every token of both lists is mapped once to an int id shared by
+         * all tokens with an equal key, and tokens are then compared by id instead of by calling the equalizer for
+         * every pair. The edits still hold the original tokens.
+         * <p>
+         * The key must be consistent with the equalizer: two tokens are equal if and only if their keys are equal by
+         * {@code equals} and {@code hashCode}. For example, {@code String::toLowerCase} for a case insensitive
+         * equalizer. A null key, the default, disables interning.
+         */
+        Builder<T> setKey(Function<? super T, ?> key);
+
         Builder<T> setComparator(Comparator<T> comparator);
 
+        /**
+         * Limit transpositions to blocks of at most {@code maxTranspositionSpan} tokens. The search for a transposition
+         * ending at a cell may walk up the whole diagonal of dissimilar lists, so a limit bounds the work per cell.
+         * Unlimited by default.
+         *
+         * @throws IllegalArgumentException if {@code maxTranspositionSpan} is less than 2.
+         */
+        Builder<T> setMaxTranspositionSpan(int maxTranspositionSpan);
+
+        /**
+         * Align the common prefix of source and target as equal edits without computing the matrix for it. The common
+         * suffix is always trimmed, since that never changes the alignment. Trimming the prefix may: with the default
+         * unit costs the cost is the same but the edits may be another alignment of that cost, and with custom costs
+         * the cost may differ as well. Disabled by default.
+         * <p>
+         * Applies to the {@link Strategy#FULL_MATRIX} strategy and to scores.
+         */
+        Builder<T> setTrimCommonPrefix(boolean trimPrefix);
+
+        /**
+         * Compute the substitute cost of each distinct pair of source and target tokens only once per alignment, for
+         * expensive cost functions such as a nested alignment of the characters of two words. Tokens are told apart by
+         * {@code equals} and {@code hashCode}, so tokens that are equal must have the same costs. The costs are kept in
+         * a hash table of the pairs the alignment compares, which stops growing at a fixed number of costs, after
+         * which pairs it does not hold are computed every time. Disabled by default.
+         * <p>
+         * Delete and insert costs are always computed once per token.
+         */
+        Builder<T> setMemoizeSubstituteCost(boolean memoize);
+
+        /**
+         * The number of workers used to align a single pair of lists. Above 1, the {@link Strategy#FULL_MATRIX}
+         * strategy fills the matrix in tiles along anti-diagonals in parallel on the {@link #setPool(ForkJoinPool)
+         * pool}, to exactly the same costs and edits, with this many workers per anti-diagonal. The cost functions,
+         * equalizer and comparator are then called from several threads at once. Unit cost levenshtein aligners
+         * compute the matrix bit-parallel, and are not affected. Defaults to 1.
+         *
+         * @throws IllegalArgumentException if {@code parallelism} is not positive.
+         */
+        Builder<T> setParallelism(int parallelism);
+
+        /**
+         * The pool that parallel work runs on. Aligners only submit tasks to it, and never create or shut down a pool
+         * of their own, so the pool is shared by every aligner built with it and its lifecycle is the caller's.
+         * Defaults to the {@link ForkJoinPool#commonPool() common pool}.
+         */
+        Builder<T> setPool(ForkJoinPool pool);
+
+        /**
+         * The number of source and target tokens in the side of a tile, when filling a matrix in parallel. Smaller
+         * tiles keep more threads busy near the corners of the matrix, larger ones synchronize less often. Defaults to
+         * 256.
+         *
+         * @throws IllegalArgumentException if {@code tileSize} is not positive.
+         */
+        Builder<T> setTileSize(int tileSize);
+
+        /**
+         * The most matrix cells whose storage each thread keeps between alignments. An aligner reuses the storage of
+         * its matrices on each thread that calls it, growing it as larger pairs come along, so that aligning allocates
+         * no matrix once the storage fits the pairs being aligned. Pairs whose matrix has more cells than this are
+         * aligned with a matrix of their own instead, which bounds the memory held per thread to about 13 bytes per
+         * cell. Zero disables reuse. Defaults to 2^20 cells.
+         *
+         * @throws IllegalArgumentException if {@code maxRetainedCells} is negative.
+         */
+        Builder<T> setMaxRetainedCells(int maxRetainedCells);
+
+        Builder<T> setStrategy(Strategy strategy);
+
         Aligner<T> build();
+
+        /**
+         * Build an aligner of {@code source} with a target that is appended one token at a time, with the costs,
+         * equalizer, key, comparator and transposition span of this builder. The strategy, parallelism and trimming
+         * do not apply.
+         */
+        IncrementalAligner<T> buildIncremental(List<T> source);
+
+        /**
+         * Build an incremental aligner as {@link #buildIncremental(List)} does, that only fills the cells within
+         * {@code bandWidth} of the diagonal. Memory is then proportional to the band rather than the source, but
+         * alignments whose path leaves the band are not found, see {@link IncrementalAligner#cost()}.
+         *
+         * @throws IllegalArgumentException if {@code bandWidth} is negative.
+         */
+        IncrementalAligner<T> buildIncremental(List<T> source, int bandWidth);
     }
 
 
@@ -1,12 +1,11 @@
 package io.github.manzurola.aligner;
 
 
-import io.github.manzurola.aligner.edit.Edit;
 import io.github.manzurola.aligner.edit.Operation;
-import io.github.manzurola.aligner.edit.Segment;
 import io.github.manzurola.aligner.metrics.*;
 
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * This implementation is a port of <a href="https://github.com/chrisjbryant/errant/blob/master/errant/alignment.py">
@@ -15,26 +14,49 @@ import java.util.*;
 final class AlignerImpl<T> implements Aligner<T> {
 
     private final Equalizer<T> equalizer;
+    private final Function<? super T, ?> key;
     private final Comparator<T> comparator;
+    private final int maxTranspositionSpan;
+    private final boolean trimPrefix;
+    private final boolean memoizeSubstitutions;
+    private final Wavefront wavefront;
     private final DeleteCost<T> deleteCost;
     private final InsertCost<T> insertCost;
     private final SubstituteCost<T> substituteCost;
     private final TransposeCost<T> transposeCost;
+    private final ThreadLocal<Workspace> workspaces;
 
     public AlignerImpl(Equalizer<T> equalizer,
+                       Function<? super T, ?> key,
                        Comparator<T> comparator,
+                       int maxTranspositionSpan,
+                       boolean trimPrefix,
+                       boolean memoizeSubstitutions,
+                       int maxRetainedCells,
+                       Wavefront wavefront,
                        DeleteCost<T> deleteCost,
                        InsertCost<T> insertCost,
                        SubstituteCost<T> substituteCost,
                        TransposeCost<T> transposeCost) {
         this.equalizer = Objects.requireNonNull(equalizer);
+        this.key = key;
         this.comparator = comparator;
+        this.maxTranspositionSpan = maxTranspositionSpan;
+        this.trimPrefix = trimPrefix;
+        this.memoizeSubstitutions = memoizeSubstitutions;
+        this.wavefront = wavefront;
         this.deleteCost = Objects.requireNonNull(deleteCost);
         this.insertCost = Objects.requireNonNull(insertCost);
         this.substituteCost = Objects.requireNonNull(substituteCost);
         this.transposeCost = Objects.requireNonNull(transposeCost);
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(maxRetainedCells));
     }
 
+    /**
+     * Only the middle between the common prefix and suffix is aligned with a matrix, see {@link Trim}. The matrix is
+     * leased from the {@link Workspace} of the calling thread, so that the aligner can be shared between threads while
+     * each of them reuses its own storage.
+     */
     @Override
     public final Alignment<T> align(List<T> source,
                                     List<T> target) {
@@ -43,197 +65,405 @@ final class AlignerImpl<T> implements Aligner<T> {
 
         T[] sourceArr = (T[]) source.toArray();
         T[] targetArr = (T[]) target.toArray();
+        IndexEqualizer equal = indexEqualizer(sourceArr, targetArr);
+        Trim trim = Trim.of(equal, sourceArr.length, targetArr.length, trimPrefix);
+        sourceArr = trim.source(sourceArr);
+        targetArr = trim.target(targetArr);
 
         int originalLength = sourceArr.length;
         int correctedLength = targetArr.length;
 
-        Cell[][] matrix = initMatrix(originalLength, correctedLength);
+        Workspace workspace = workspaces.get();
+        Matrix matrix = workspace.lease(originalLength, correctedLength);
+        try {
+            matrix.fillEdges();
+            fill(matrix, sourceArr, targetArr, trim.middle(equal));
+
+            Script script = new Script();
+            trim.addPrefix(script);
+            backtrack(matrix, script);
+            trim.addSuffix(script);
+            double cost = matrix.cost(originalLength, correctedLength);
+            return Alignment.of(source, target, script, cost);
+        } finally {
+            workspace.release(matrix);
+        }
+    }
 
-        for (int i = 0; i < originalLength; i++) {
-            for (int j = 0; j < correctedLength; j++) {
+    /**
+     * Fills only the band of cells whose cost is within {@code maxCost}, following Ukkonen's cut-off. Each row is
+     * computed from the first column of the previous row that stayed within the bound, up to one column past the last
+     * one, and further right for as long as the cells stay within it. The band thus widens and narrows with the costs
+     * along the way. As soon as no cell of a row is within the bound, the alignment is abandoned.
+     * <p>
+     * With non negative costs every cell on an alignment within the bound is itself within the bound, so the band holds
+     * all the cells needed and the alignment is the same as that of {@link #align(List, List)}. The exception is a
+     * transposition whose lookback up the diagonal crosses cells outside the band, which is not considered.
+     * <p>
+     * For unit costs the band is at most {@code 2 * maxCost + 1} cells wide, so time and memory are O(maxCost * m).
+     */
+    @Override
+    public final Optional<Alignment<T>> alignWithin(List<T> source,
+                                                    List<T> target,
+                                                    double maxCost) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
 
-                T sourceToken = sourceArr[i];
-                T targetToken = targetArr[j];
+        if (maxCost < 0) {
+            return Optional.empty();
+        }
 
-                if (equalizer.isEqual(sourceToken, targetToken)) {
-                    matrix[i + 1][j + 1].cost = matrix[i][j].cost;
-                    matrix[i + 1][j + 1].op = Operation.EQUAL;
+        T[] sourceArr = (T[]) source.toArray();
+        T[] targetArr = (T[]) target.toArray();
+        IndexEqualizer tokens = indexEqualizer(sourceArr, targetArr);
+        Trim trim = Trim.of(tokens, sourceArr.length, targetArr.length, trimPrefix);
+        sourceArr = trim.source(sourceArr);
+        targetArr = trim.target(targetArr);
 
+        int originalLength = sourceArr.length;
+        int correctedLength = targetArr.length;
+        IndexEqualizer equal = trim.middle(tokens);
+        Transpositions transpositions = transpositions(sourceArr, targetArr);
+        Costs<T> costs = costs(sourceArr, targetArr);
+
+        Band band = new Band(originalLength, correctedLength);
+        band.beginRow(0, 0);
+        band.setOrigin();
+        int first = 0;
+        int last = 0;
+        for (int j = 1; j < correctedLength + 1 && band.cost(0, j - 1) + 1 <= maxCost; j++) {
+            band.set(0, j, band.cost(0, j - 1) + 1, Operation.INSERT);
+            last = j;
+        }
+
+        for (int i = 0; i < originalLength; i++) {
+            band.beginRow(i + 1, first);
+            int nextFirst = -1;
+            int nextLast = -1;
+            for (int j = first; j < correctedLength + 1; j++) {
+                // Past the previous row's band, a cell can only be reached from its left neighbour
+                if (j > last + 1 && nextLast != j - 1) {
+                    break;
+                }
+                if (j == 0) {
+                    band.set(i + 1, 0, band.cost(i, 0) + 1, Operation.DELETE);
                 } else {
-                    double delCost = matrix[i][j + 1].cost + deleteCost.getCost(sourceToken);
-                    double insCost = matrix[i + 1][j].cost + insertCost.getCost(targetToken);
-                    double subCost = matrix[i][j].cost + substituteCost.getCost(sourceToken, targetToken);
-
-                    // Transpositions require >=2 tokens
-                    // Traverse the diagonal while there is not a Match.
-                    double transCost = Double.MAX_VALUE;
-                    int k = 1;
-                    if (comparator != null) {
-                        while (i - k >= 0 &&
-                               j - k >= 0 &&
-                               matrix[i - k + 1][j - k + 1].cost != matrix[i - k][j - k].cost) {
+                    fillCell(band, equal, costs, transpositions, maxTranspositionSpan, i, j - 1);
+                }
+                if (band.cost(i + 1, j) <= maxCost) {
+                    if (nextFirst < 0) {
+                        nextFirst = j;
+                    }
+                    nextLast = j;
+                }
+            }
+            if (nextFirst < 0) {
+                return Optional.empty();
+            }
+            first = nextFirst;
+            last = nextLast;
+        }
 
-                            T[] sourceSub = Arrays.copyOfRange(sourceArr, i - k, i + 1);
-                            T[] targetSub = Arrays.copyOfRange(targetArr, j - k, j + 1);
+        double cost = band.cost(originalLength, correctedLength);
+        if (!(cost <= maxCost)) {
+            return Optional.empty();
+        }
+        Script script = new Script();
+        trim.addPrefix(script);
+        backtrack(band, script);
+        trim.addSuffix(script);
+        return Optional.of(Alignment.of(source, target, script, cost));
+    }
 
-                            boolean isTransposed = isTransposed(sourceSub, targetSub);
+    /**
+     * The workspace of the calling thread, to lease matrices from.
+     */
+    Workspace workspace() {
+        return workspaces.get();
+    }
 
-                            if (isTransposed) {
-                                transCost = matrix[i - k][j - k].cost + transposeCost.getCost(
-                                        sourceSub,
-                                        targetSub);
-                                break;
-                            }
+    /**
+     * Test the source and target tokens for equality by index. With a key function, every token is interned to the id
+     * of its key once, and ids are compared instead of calling the equalizer for every cell.
+     */
+    IndexEqualizer indexEqualizer(T[] sourceArr, T[] targetArr) {
+        if (key == null) {
+            return (i, j) -> equalizer.isEqual(sourceArr[i], targetArr[j]);
+        }
+        Interner<T> interner = new Interner<>(key);
+        int[] sourceIds = interner.intern(sourceArr);
+        int[] targetIds = interner.intern(targetArr);
+        return (i, j) -> sourceIds[i] == targetIds[j];
+    }
 
-                            k += 1;
-                        }
-                    }
-                    // Costs
-                    // TODO fix this hack - using the index of the list at the switch below
-                    List<Double> costs = Arrays.asList(transCost, subCost, insCost, delCost);
-                    int minCostIndex = costs.indexOf(costs.stream().min(Double::compareTo).get());
-                    matrix[i + 1][j + 1].cost = costs.get(minCostIndex);
-                    switch (minCostIndex) {
-                        case 0: {
-                            matrix[i + 1][j + 1].op = Operation.TRANSPOSE;
-                            matrix[i + 1][j + 1].k = k + 1;
-                            break;
-                        }
-                        case 1: {
-                            matrix[i + 1][j + 1].op = Operation.SUBSTITUTE;
-                            break;
-                        }
-                        case 2: {
-                            matrix[i + 1][j + 1].op = Operation.INSERT;
-                            break;
-                        }
-                        case 3: {
-                            matrix[i + 1][j + 1].op = Operation.DELETE;
-                            break;
-                        }
+    /**
+     * Fill the inner cells of a matrix whose first row and column are already set. The matrix covers the supplied
+     * source and target tokens, which may be a sub range of the lists being aligned, and {@code equal} compares them by
+     * their indices in the supplied arrays.
+     * <p>
+     * With a {@link Wavefront}, matrices of more than one tile are filled in parallel, to the same costs and
+     * operations.
+     */
+    void fill(Matrix matrix, T[] sourceArr, T[] targetArr, IndexEqualizer equal) {
+        int originalLength = sourceArr.length;
+        int correctedLength = targetArr.length;
+        Transpositions transpositions = transpositions(sourceArr, targetArr);
+        Costs<T> costs = costs(sourceArr, targetArr);
+
+        if (wavefront != null) {
+            Transpositions[] detectors = new Transpositions[wavefront.parallelism()];
+            List<Costs<T>> workerCosts = new ArrayList<>(detectors.length);
+            for (int w = 0; w < detectors.length; w++) {
+                detectors[w] = transpositions != null ? transpositions.copy() : null;
+                workerCosts.add(costs.copy());
+            }
+            wavefront.fill(originalLength, correctedLength, (i0, i1, j0, j1, worker) -> {
+                Costs<T> own = workerCosts.get(worker);
+                for (int i = i0; i < i1; i++) {
+                    for (int j = j0; j < j1; j++) {
+                        fillCell(matrix, equal, own, detectors[worker], maxTranspositionSpan, i, j);
                     }
                 }
+            });
+            return;
+        }
+
+        for (int i = 0; i < originalLength; i++) {
+            for (int j = 0; j < correctedLength; j++) {
+                fillCell(matrix, equal, costs, transpositions, maxTranspositionSpan, i, j);
             }
         }
+    }
 
-        List<Edit<T>> edits = backtrack(matrix, source, target);
-        double cost = matrix[originalLength][correctedLength].cost;
-        return Alignment.of(edits, cost);
+    /**
+     * The transposition detector for source and target, or null if transpositions are disabled.
+     */
+    private Transpositions transpositions(T[] sourceArr, T[] targetArr) {
+        return comparator != null ? Transpositions.of(comparator, sourceArr, targetArr) : null;
     }
 
-    private Cell[][] initMatrix(int m, int n) {
+    /**
+     * The costs of the operations on source and target tokens, see {@link Costs}.
+     */
+    private Costs<T> costs(T[] sourceArr, T[] targetArr) {
+        return Costs.of(
+                sourceArr,
+                targetArr,
+                deleteCost,
+                insertCost,
+                substituteCost,
+                transposeCost,
+                comparator,
+                memoizeSubstitutions
+        );
+    }
 
-        Cell[][] matrix = new Cell[m + 1][n + 1];
-        for (int i = 0, ilen = matrix.length; i < ilen; i++) {
-            for (int j = 0, jlen = matrix[i].length; j < jlen; j++) {
-                matrix[i][j] = new Cell(0.0);
+    /**
+     * Fill cell (i + 1, j + 1) of the grid, comparing source token i with target token j. The cells above and to the
+     * left of it, including those up its diagonal, must already be filled.
+     */
+    static void fillCell(Grid grid,
+                         IndexEqualizer equal,
+                         CellCosts costs,
+                         Transpositions transpositions,
+                         int maxTranspositionSpan,
+                         int i,
+                         int j) {
+        if (equal.isEqual(i, j)) {
+            grid.set(i + 1, j + 1, grid.cost(i, j), Operation.EQUAL);
+
+        } else {
+            double delCost = grid.cost(i, j + 1) + costs.delete(i);
+            double insCost = grid.cost(i + 1, j) + costs.insert(j);
+            double subCost = grid.cost(i, j) + costs.substitute(i, j);
+
+            // Transpositions require >=2 tokens
+            // Traverse the diagonal while there is not a Match.
+            double transCost = Double.MAX_VALUE;
+            int k = 1;
+            if (transpositions != null) {
+                transpositions.begin(i, j);
+                while (k < maxTranspositionSpan &&
+                       i - k >= 0 &&
+                       j - k >= 0 &&
+                       grid.cost(i - k + 1, j - k + 1) != grid.cost(i - k, j - k)) {
+
+                    if (transpositions.extend(i - k, j - k)) {
+                        transCost = grid.cost(i - k, j - k) + costs.transpose(i - k, i + 1, j - k, j + 1);
+                        break;
+                    }
+
+                    k += 1;
+                }
+            }
+            // Pick the cheapest operation, preferring transpose, substitute, insert and delete in that order
+            // when costs are tied
+            double minCost = transCost;
+            Operation minOp = Operation.TRANSPOSE;
+            if (Double.compare(subCost, minCost) < 0) {
+                minCost = subCost;
+                minOp = Operation.SUBSTITUTE;
+            }
+            if (Double.compare(insCost, minCost) < 0) {
+                minCost = insCost;
+                minOp = Operation.INSERT;
+            }
+            if (Double.compare(delCost, minCost) < 0) {
+                minCost = delCost;
+                minOp = Operation.DELETE;
+            }
+            if (minOp == Operation.TRANSPOSE) {
+                grid.setTranspose(i + 1, j + 1, minCost, k + 1);
+            } else {
+                grid.set(i + 1, j + 1, minCost, minOp);
             }
         }
-        // Fill in the edges
-        for (int i = 1; i < m + 1; i++) {
-            matrix[i][0].cost = matrix[i - 1][0].cost + 1;
-            matrix[i][0].op = Operation.DELETE;
-        }
-        for (int j = 1; j < n + 1; j++) {
-            matrix[0][j].cost = matrix[0][j - 1].cost + 1;
-            matrix[0][j].op = Operation.INSERT;
-        }
-        return matrix;
     }
 
-    private boolean isTransposed(T[] source,
-                                 T[] target) {
-        if (source.length == 2) {
-            //most common scenario, compare permutations without sort
-            T source1 = source[0];
-            T source2 = source[1];
-            T target1 = target[0];
-            T target2 = target[1];
-            boolean identical = comparator.compare(source1, target1) == 0 && comparator.compare(source2, target2) == 0;
-            boolean reversed = comparator.compare(source1, target2) == 0 && comparator.compare(source2, target1) == 0;
-            return identical || reversed;
+    /**
+     * Computes the cost of the alignment while keeping only the rows of the matrix that are still needed. Each row
+     * spans the shorter of the two lists, so memory is O(min(m, n)) for levenshtein aligners. When transpositions are
+     * enabled, the rows along the longest diagonal that a transposition may look back on are also kept.
+     * <p>
+     * Swapping the source and target roles yields the transposed matrix with identical cell costs, so the score equals
+     * the cost of {@link #align(List, List)}.
+     */
+    @Override
+    public final Score score(List<T> source,
+                             List<T> target) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
+
+        T[] sourceArr = (T[]) source.toArray();
+        T[] targetArr = (T[]) target.toArray();
+        IndexEqualizer tokens = indexEqualizer(sourceArr, targetArr);
+        Trim trim = Trim.of(tokens, sourceArr.length, targetArr.length, trimPrefix);
+        sourceArr = trim.source(sourceArr);
+        targetArr = trim.target(targetArr);
+        IndexEqualizer equal = trim.middle(tokens);
+
+        boolean swapped = targetArr.length > sourceArr.length;
+        T[] rowTokens = swapped ? targetArr : sourceArr;
+        T[] colTokens = swapped ? sourceArr : targetArr;
+        int m = rowTokens.length;
+        int n = colTokens.length;
+
+        Rows rows = new Rows(n);
+        // The number of consecutive differing cells up the diagonal of each cell in the previous and current rows
+        int[] prevRun = comparator != null ? new int[n + 1] : null;
+        int[] currRun = comparator != null ? new int[n + 1] : null;
+        Transpositions transpositions = transpositions(rowTokens, colTokens);
+        Costs<T> costs = costs(sourceArr, targetArr);
+        int maxRun = 0;
+
+        double[] first = rows.row(0);
+        for (int j = 1; j < n + 1; j++) {
+            first[j] = first[j - 1] + 1;
         }
 
-        Arrays.sort(source, comparator);
-        Arrays.sort(target, comparator);
-        boolean match = false;
-        for (int i = 0; i < source.length; i++) {
-            T s = source[i];
-            T t = target[i];
-            match = comparator.compare(s, t) == 0;
-            if (!match) {
-                break;
+        for (int i = 0; i < m; i++) {
+            if (comparator != null) {
+                // Looking up the diagonal reads one row past the longest run
+                rows.ensureCapacity(maxRun + 3);
+                maxRun = 0;
+            }
+            double[] prev = rows.row(i);
+            double[] curr = rows.row(i + 1);
+            curr[0] = prev[0] + 1;
+
+            for (int j = 0; j < n; j++) {
+
+                if (swapped ? equal.isEqual(j, i) : equal.isEqual(i, j)) {
+                    curr[j + 1] = prev[j];
+
+                } else {
+                    double rowCost = swapped ? costs.insert(i) : costs.delete(i);
+                    double colCost = swapped ? costs.delete(j) : costs.insert(j);
+                    double minCost = prev[j] + (swapped ? costs.substitute(j, i) : costs.substitute(i, j));
+                    minCost = min(minCost, curr[j] + colCost);
+                    minCost = min(minCost, prev[j + 1] + rowCost);
+
+                    if (transpositions != null) {
+                        transpositions.begin(i, j);
+                        int k = 1;
+                        while (k < maxTranspositionSpan &&
+                               i - k >= 0 &&
+                               j - k >= 0 &&
+                               rows.row(i - k + 1)[j - k + 1] != rows.row(i - k)[j - k]) {
+
+                            if (transpositions.extend(i - k, j - k)) {
+                                double transCost = rows.row(i - k)[j - k] + (swapped
+                                        ? costs.transpose(j - k, j + 1, i - k, i + 1)
+                                        : costs.transpose(i - k, i + 1, j - k, j + 1));
+                                minCost = min(minCost, transCost);
+                                break;
+                            }
+
+                            k += 1;
+                        }
+                    }
+                    curr[j + 1] = minCost;
+                }
+
+                if (comparator != null) {
+                    currRun[j + 1] = curr[j + 1] != prev[j] ? prevRun[j] + 1 : 0;
+                    maxRun = Math.max(maxRun, currRun[j + 1]);
+                }
+            }
+
+            if (comparator != null) {
+                int[] temp = prevRun;
+                prevRun = currRun;
+                currRun = temp;
             }
         }
-        return match;
+
+        return Score.of(rows.row(m)[n], source.size(), target.size());
     }
 
-    private List<Edit<T>> backtrack(Cell[][] matrix,
-                                    List<T> source,
-                                    List<T> target) {
-        int i = matrix.length - 1;
-        int j = matrix[0].length - 1;
-        List<Edit<T>> sequence = new ArrayList<>();
+    /**
+     * The lesser of two costs, as ordered by {@link Double#compare(double, double)} like the full matrix.
+     */
+    private static double min(double a, double b) {
+        return Double.compare(b, a) < 0 ? b : a;
+    }
+
+    /**
+     * Backtrack a filled grid from the bottom right cell and append the operations of the resulting edits to
+     * {@code script}.
+     */
+    static void backtrack(Grid matrix, Script script) {
+        int i = matrix.rows();
+        int j = matrix.columns();
+        script.beginBacktrack();
         // Work backwards from bottom right until we hit top left
-        while (i + j != 0) {
+        while (i != 0 || j != 0) {
             // Get the edit operation in the current cell
-            Operation op = matrix[i][j].op;
+            Operation op = matrix.op(i, j);
             switch (op) {
                 case EQUAL:
                 case SUBSTITUTE:
-                    sequence.add(createEdit(op, i - 1, i, j - 1, j, source, target));
+                    script.add(op);
                     i -= 1;
                     j -= 1;
                     break;
                 case DELETE:
-                    sequence.add(createEdit(op, i - 1, i, j, j, source, target));
+                    script.add(op);
                     i -= 1;
                     break;
                 case INSERT:
-                    sequence.add(createEdit(op, i, i, j - 1, j, source, target));
+                    script.add(op);
                     j -= 1;
                     break;
                 case TRANSPOSE:
-                    int k = matrix[i][j].k;
-                    sequence.add(createEdit(op, i - k, i, j - k, j, source, target));
+                    int k = matrix.length(i, j);
+                    script.add(op, k, 1);
                     i -= k;
                     j -= k;
                     break;
             }
         }
-
-        Collections.reverse(sequence);
-        return sequence;
-    }
-
-    private Edit<T> createEdit(Operation op,
-                               int originalStart,
-                               int originalEnd,
-                               int correctedStart,
-                               int correctedEnd,
-                               List<T> source,
-                               List<T> target) {
-
-        return Edit.of(
-                op,
-                Segment.of(originalStart, source.subList(originalStart, originalEnd)),
-                Segment.of(correctedStart, target.subList(correctedStart, correctedEnd))
-        );
-    }
-
-    static class Cell {
-        public double cost;
-        public Operation op;
-        public int k;
-
-        public Cell(double cost) {
-            this.cost = cost;
-        }
-
-        @Override
-        public String toString() {
-            return "{" + cost + "," + op + ", " + k + '}';
-        }
+        script.endBacktrack();
     }
 
 }
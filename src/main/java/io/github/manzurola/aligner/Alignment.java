@@ -2,36 +2,110 @@ package io.github.manzurola.aligner;
 
 import io.github.manzurola.aligner.edit.Edit;
 import io.github.manzurola.aligner.edit.EqualEdit;
+import io.github.manzurola.aligner.edit.MergePolicy;
+import io.github.manzurola.aligner.edit.Operation;
 import io.github.manzurola.aligner.edit.Segment;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * The edits that turn a source into a target, and their total cost.
+ * <p>
+ * The aligners of this package keep an alignment as the source, the target and a {@link Script} of run length encoded
+ * operations, whose edits are only created when {@link #edits()} is first called, or one at a time by {@link #forEach}
+ * and {@link #diffs()}. A {@link Cursor} walks the operations and positions of the edits without creating any.
+ * Alignments created from a list of edits with {@link #of(List, double)} keep that list.
+ */
 public final class Alignment<T> {
 
-    private final List<Edit<T>> edits;
+    private final List<T> source;
+    private final List<T> target;
+    private final Script script;
     private final double cost;
+    private final int sourceSize;
+    private final int targetSize;
+    private volatile List<Edit<T>> edits;
 
     private Alignment(List<Edit<T>> edits, double cost) {
-        this.edits = Objects.requireNonNull(edits);
+        this.edits = Collections.unmodifiableList(Objects.requireNonNull(edits));
+        this.source = null;
+        this.target = null;
+        this.script = null;
         this.cost = cost;
+        int sourceSize = 0;
+        int targetSize = 0;
+        for (Edit<T> edit : edits) {
+            sourceSize += edit.source().size();
+            targetSize += edit.target().size();
+        }
+        this.sourceSize = sourceSize;
+        this.targetSize = targetSize;
+    }
+
+    private Alignment(List<T> source, List<T> target, Script script, double cost) {
+        this.source = source;
+        this.target = target;
+        this.script = script;
+        this.cost = cost;
+        this.sourceSize = script.sourceLength();
+        this.targetSize = script.targetLength();
     }
 
     public static <T> Alignment<T> of(List<Edit<T>> edits, double cost) {
         return new Alignment<>(edits, cost);
     }
 
+    /**
+     * An alignment whose edits are those of {@code script}, over the whole of source and target.
+     */
+    static <T> Alignment<T> of(List<T> source, List<T> target, Script script, double cost) {
+        if (script.sourceLength() != source.size() || script.targetLength() != target.size()) {
+            throw new IllegalArgumentException("script does not cover source and target");
+        }
+        return new Alignment<>(source, target, script.trim(), cost);
+    }
+
+    /**
+     * The edits, in an unmodifiable list that is built once and shared by all callers, as alignments may be shared
+     * too, for example by a {@link CachedAligner}.
+     */
     public final List<Edit<T>> edits() {
-        return edits;
+        List<Edit<T>> result = edits;
+        if (result == null) {
+            List<Edit<T>> list = new ArrayList<>(script.size());
+            Cursor<T> cursor = cursor();
+            while (cursor.next()) {
+                list.add(cursor.edit());
+            }
+            result = Collections.unmodifiableList(list);
+            edits = result;
+        }
+        return result;
     }
 
     public final List<Edit<T>> diffs() {
-        return edits.stream()
-                .filter(e -> !(e instanceof EqualEdit))
-                .collect(Collectors.toList());
+        if (edits != null) {
+            return edits.stream()
+                    .filter(e -> !(e instanceof EqualEdit))
+                    .collect(Collectors.toList());
+        }
+        List<Edit<T>> result = new ArrayList<>();
+        Cursor<T> cursor = cursor();
+        while (cursor.next()) {
+            if (cursor.operation() != Operation.EQUAL) {
+                result.add(cursor.edit());
+            }
+        }
+        return result;
     }
 
     public final Stream<Edit<T>> stream() {
@@ -39,7 +113,21 @@ public final class Alignment<T> {
     }
 
     public final void forEach(Consumer<Edit<T>> consumer) {
-        edits.forEach(consumer);
+        if (edits != null) {
+            edits.forEach(consumer);
+            return;
+        }
+        Cursor<T> cursor = cursor();
+        while (cursor.next()) {
+            consumer.accept(cursor.edit());
+        }
+    }
+
+    /**
+     * A cursor before the first edit.
+     */
+    public final Cursor<T> cursor() {
+        return new Cursor<>(this);
     }
 
     /**
@@ -53,7 +141,7 @@ public final class Alignment<T> {
      * The normalized cost [0, 1]
      */
     public final double distance() {
-        return cost() / Math.max(source().size(), target().size());
+        return cost() / Math.max(sourceSize, targetSize);
     }
 
     /**
@@ -67,26 +155,163 @@ public final class Alignment<T> {
      * The normalized cost ratio, defined as (maxLength - cost) / maxLength
      */
     public final double ratio() {
-        int lensum = Math.max(source().size(), target().size());
+        int lensum = Math.max(sourceSize, targetSize);
         return (lensum - cost()) / lensum;
     }
 
+    /**
+     * The source tokens, in a new list of their own.
+     */
     public final List<T> source() {
+        if (script != null) {
+            return new ArrayList<>(source);
+        }
         return edits.stream()
                 .map(Edit::source)
                 .flatMap(Segment::stream)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * The target tokens, in a new list of their own.
+     */
     public final List<T> target() {
+        if (script != null) {
+            return new ArrayList<>(target);
+        }
         return edits.stream()
                 .map(Edit::target)
                 .flatMap(Segment::stream)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * The number of source tokens, i.e. the size of {@link #source()}.
+     */
+    public final int sourceSize() {
+        return sourceSize;
+    }
+
+    /**
+     * The number of target tokens, i.e. the size of {@link #target()}.
+     */
+    public final int targetSize() {
+        return targetSize;
+    }
+
     public final int size() {
-        return edits.size();
+        return script != null ? script.size() : edits.size();
+    }
+
+    /**
+     * The alignment of the target to the source, with every edit inverted and the same cost. With symmetric costs it
+     * is an optimal alignment of the target to the source.
+     */
+    public final Alignment<T> invert() {
+        if (script != null) {
+            return new Alignment<>(target, source, script.invert(), cost);
+        }
+        List<Edit<T>> inverted = new ArrayList<>(edits.size());
+        for (Edit<T> edit : edits) {
+            inverted.add(edit.invert());
+        }
+        return new Alignment<>(inverted, cost);
+    }
+
+    /**
+     * The same edits and cost over the tokens of {@code source} and {@code target}, which must have as many tokens as
+     * the source and target of this alignment. This lets tokens be aligned by cheaper stand ins, such as ids, and
+     * refer to the tokens themselves afterwards. Alignments of the aligners of this package keep their operations, and
+     * are not expanded into edits.
+     *
+     * @throws IllegalArgumentException if the sizes differ.
+     */
+    public final <U> Alignment<U> withTokens(List<U> source, List<U> target) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
+        if (source.size() != sourceSize || target.size() != targetSize) {
+            throw new IllegalArgumentException("tokens do not match the sizes of the alignment");
+        }
+        if (script != null) {
+            return new Alignment<>(source, target, script, cost);
+        }
+        List<Edit<U>> result = new ArrayList<>(edits.size());
+        for (Edit<T> edit : edits) {
+            result.add(Edit.of(
+                    edit.operation(),
+                    Segment.of(edit.source().position(), source.subList(edit.source().position(), edit.source().end())),
+                    Segment.of(edit.target().position(), target.subList(edit.target().position(), edit.target().end()))
+            ));
+        }
+        return new Alignment<>(result, cost);
+    }
+
+    /**
+     * The alignment with every run of adjacent edits accepted by {@code policy} merged into a single edit, and the same
+     * cost. The operation of a merged edit is that of its edits if they are all the same, and a substitution
+     * otherwise, or if they are transpositions, as with {@link Edit#mergeWith(Edit)}. Each merged segment is built
+     * once, as a view of the aligned list if the alignment holds one, so merging takes linear time.
+     */
+    public final Alignment<T> merge(MergePolicy<T> policy) {
+        Objects.requireNonNull(policy);
+        List<Edit<T>> edits = edits();
+        if (!(edits instanceof RandomAccess)) {
+            edits = new ArrayList<>(edits);
+        }
+        List<Edit<T>> merged = new ArrayList<>();
+        int start = 0;
+        for (int end = 1; end <= edits.size(); end++) {
+            if (end < edits.size()) {
+                Edit<T> left = edits.get(end - 1);
+                Edit<T> right = edits.get(end);
+                if (left.isLeftSiblingOf(right) && policy.canMerge(left, right)) {
+                    continue;
+                }
+            }
+            merged.add(end - start == 1 ? edits.get(start) : merge(edits, start, end));
+            start = end;
+        }
+        return new Alignment<>(merged, cost);
+    }
+
+    /**
+     * Merge the contiguous edits [start, end).
+     */
+    private Edit<T> merge(List<Edit<T>> edits, int start, int end) {
+        Operation operation = edits.get(start).operation();
+        int sourceSize = 0;
+        int targetSize = 0;
+        for (int n = start; n < end; n++) {
+            Edit<T> edit = edits.get(n);
+            if (operation != edit.operation() || operation == Operation.TRANSPOSE) {
+                operation = Operation.SUBSTITUTE;
+            }
+            sourceSize += edit.source().size();
+            targetSize += edit.target().size();
+        }
+        Edit<T> first = edits.get(start);
+        return Edit.of(
+                operation,
+                merge(edits, start, end, source, first.source().position(), sourceSize, Edit::source),
+                merge(edits, start, end, target, first.target().position(), targetSize, Edit::target)
+        );
+    }
+
+    private static <T> Segment<T> merge(List<Edit<T>> edits,
+                                        int start,
+                                        int end,
+                                        List<T> list,
+                                        int position,
+                                        int size,
+                                        Function<Edit<T>, Segment<T>> segment) {
+        if (list != null) {
+            return Segment.of(position, list.subList(position, position + size));
+        }
+        List<T> tokens = new ArrayList<>(size);
+        for (int n = start; n < end; n++) {
+            tokens.addAll(segment.apply(edits.get(n)).tokens());
+        }
+        return Segment.of(position, tokens);
     }
 
     @Override
@@ -94,22 +319,159 @@ public final class Alignment<T> {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Alignment<?> alignment = (Alignment<?>) o;
-        return Double.compare(alignment.cost, cost) == 0 &&
-               edits.equals(alignment.edits);
+        if (Double.compare(alignment.cost, cost) != 0) {
+            return false;
+        }
+        if (script != null && alignment.script != null) {
+            return script.equals(alignment.script) &&
+                   source.equals(alignment.source) &&
+                   target.equals(alignment.target);
+        }
+        return edits().equals(alignment.edits());
     }
 
+    /**
+     * The hash of the edit list and the cost, as {@code Objects.hash(edits(), cost())}, computed without keeping the
+     * edits of alignments that do not hold them.
+     */
     @Override
     public final int hashCode() {
-        return Objects.hash(edits, cost);
+        int editsHash = 1;
+        if (edits != null) {
+            editsHash = edits.hashCode();
+        } else {
+            Cursor<T> cursor = cursor();
+            while (cursor.next()) {
+                editsHash = 31 * editsHash + cursor.edit().hashCode();
+            }
+        }
+        return 31 * (31 + editsHash) + Double.hashCode(cost);
     }
 
     @Override
     public final String toString() {
-        return "Alignment{" +
-               "edits=" + edits +
-               ", cost=" + cost +
-               '}';
+        StringBuilder builder = new StringBuilder("Alignment{edits=[");
+        Cursor<T> cursor = cursor();
+        for (boolean first = true; cursor.next(); first = false) {
+            if (!first) {
+                builder.append(", ");
+            }
+            builder.append(cursor.edit());
+        }
+        return builder.append("], cost=").append(cost).append('}').toString();
     }
 
+    /**
+     * Walks the edits of an alignment in order, exposing the operation, positions and sizes of the current edit
+     * without creating it. The cursor starts before the first edit, and {@link #next()} moves it to the next one.
+     */
+    public static final class Cursor<T> {
+
+        private final Alignment<T> alignment;
+        private final Script script;
+        private final Iterator<Edit<T>> edits;
+        private Edit<T> edit;
+        private int run;
+        private int left;
+        private Operation operation;
+        private int sourcePosition;
+        private int targetPosition;
+        private int sourceSize;
+        private int targetSize;
+
+        private Cursor(Alignment<T> alignment) {
+            this.alignment = alignment;
+            this.script = alignment.script;
+            this.edits = script == null ? alignment.edits.iterator() : null;
+        }
+
+        /**
+         * Move to the next edit.
+         *
+         * @return false if there are no more edits.
+         */
+        public final boolean next() {
+            if (edits != null) {
+                if (!edits.hasNext()) {
+                    return false;
+                }
+                edit = edits.next();
+                operation = edit.operation();
+                sourcePosition = edit.source().position();
+                targetPosition = edit.target().position();
+                sourceSize = edit.source().size();
+                targetSize = edit.target().size();
+                return true;
+            }
+            sourcePosition += sourceSize;
+            targetPosition += targetSize;
+            if (left == 0) {
+                if (run == script.runs()) {
+                    sourceSize = 0;
+                    targetSize = 0;
+                    return false;
+                }
+                operation = script.op(run);
+                sourceSize = script.sourceSpan(run);
+                targetSize = script.targetSpan(run);
+                left = script.count(run);
+                run++;
+            }
+            left--;
+            return true;
+        }
+
+        public final Operation operation() {
+            return operation;
+        }
 
+        public final int sourcePosition() {
+            return sourcePosition;
+        }
+
+        public final int targetPosition() {
+            return targetPosition;
+        }
+
+        public final int sourceSize() {
+            return sourceSize;
+        }
+
+        public final int targetSize() {
+            return targetSize;
+        }
+
+        /**
+         * Source token {@code k} of the current edit.
+         */
+        public final T sourceToken(int k) {
+            Objects.checkIndex(k, sourceSize);
+            return edits != null ? edit.source().tokens().get(k) : alignment.source.get(sourcePosition + k);
+        }
+
+        /**
+         * Target token {@code k} of the current edit.
+         */
+        public final T targetToken(int k) {
+            Objects.checkIndex(k, targetSize);
+            return edits != null ? edit.target().tokens().get(k) : alignment.target.get(targetPosition + k);
+        }
+
+        /**
+         * The current edit, created for alignments that do not hold their edits.
+         */
+        public final Edit<T> edit() {
+            if (operation == null) {
+                throw new IllegalStateException("next() was not called");
+            }
+            if (edits != null) {
+                return edit;
+            }
+            return Edit.of(
+                    operation,
+                    Segment.of(sourcePosition, alignment.source.subList(sourcePosition, sourcePosition + sourceSize)),
+                    Segment.of(targetPosition, alignment.target.subList(targetPosition, targetPosition + targetSize))
+            );
+        }
+    }
 }
@@ -0,0 +1,195 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.edit.Operation;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * An aligner that splits long lists at anchors before aligning them, after patience diff. Anchors are tokens that occur
+ * exactly once in the source and once in the target. Of these, the longest sequence whose positions increase in both
+ * lists is matched as equal edits. The gaps between consecutive anchors are independent, so each is split again by the
+ * anchors unique within it, until a gap has none and is aligned by the gap aligner.
+ * <p>
+ * Gaps are aligned in parallel on a {@link ForkJoinPool}, and the operations of their edits are appended in order to
+ * the {@link Script} of the lists being aligned. The cost is the sum of the costs of the gaps. Committing to the
+ * anchors makes this a heuristic: the alignment is usually that of the full matrix when the lists are mostly similar,
+ * but may cost more when an anchor is not on any optimal path.
+ * <p>
+ * Tokens are hashed by their anchor key to find the unique ones. Without a key, no anchors are found and the lists are
+ * aligned by the gap aligner as a whole.
+ */
+final class AnchoredAligner<T> implements Aligner<T> {
+
+    /**
+     * Gaps with at most this many cells are aligned in the task that found them, rather than forked.
+     */
+    static final int FORK_CELLS = 1 << 12;
+
+    private final Aligner<T> gapAligner;
+    private final Function<? super T, ?> key;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param gapAligner the aligner of the gaps between anchors.
+     * @param key        the key that tokens are hashed by, consistent with the equalizer, or null to disable anchors.
+     */
+    AnchoredAligner(Aligner<T> gapAligner, Function<? super T, ?> key, ForkJoinPool pool) {
+        this.gapAligner = Objects.requireNonNull(gapAligner);
+        this.key = key;
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    @Override
+    public final Alignment<T> align(List<T> source, List<T> target) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
+
+        if (key == null) {
+            return gapAligner.align(source, target);
+        }
+        Gap gap = new Gap(source, target, 0, source.size(), 0, target.size());
+        Script script = pool.invoke(gap);
+        return Alignment.of(source, target, script, gap.cost);
+    }
+
+    /**
+     * Find the anchors of source range [i0, i1) and target range [j0, j1).
+     *
+     * @return the source and target index of each anchor, in increasing order.
+     */
+    private int[][] anchors(List<T> source, List<T> target, int i0, int i1, int j0, int j1) {
+        // For each key: occurrences in source, occurrences in target, last source index, last target index
+        Map<Object, int[]> occurrences = new HashMap<>();
+        for (int i = i0; i < i1; i++) {
+            int[] entry = occurrences.computeIfAbsent(key.apply(source.get(i)), k -> new int[4]);
+            entry[0]++;
+            entry[2] = i;
+        }
+        for (int j = j0; j < j1; j++) {
+            int[] entry = occurrences.get(key.apply(target.get(j)));
+            if (entry != null) {
+                entry[1]++;
+                entry[3] = j;
+            }
+        }
+        int[] targetOf = new int[i1 - i0];
+        Arrays.fill(targetOf, -1);
+        int unique = 0;
+        for (int[] entry : occurrences.values()) {
+            if (entry[0] == 1 && entry[1] == 1) {
+                targetOf[entry[2] - i0] = entry[3];
+                unique++;
+            }
+        }
+        if (unique == 0) {
+            return new int[0][];
+        }
+        return increasing(targetOf, i0);
+    }
+
+    /**
+     * Patience sorting: the longest sequence of source indices whose target indices also increase.
+     *
+     * @param targetOf the target index of each unique source token, relative to {@code i0}, or -1.
+     */
+    private static int[][] increasing(int[] targetOf, int i0) {
+        int[] tails = new int[targetOf.length];
+        int[] previous = new int[targetOf.length];
+        int length = 0;
+        for (int i = 0; i < targetOf.length; i++) {
+            if (targetOf[i] < 0) {
+                continue;
+            }
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (targetOf[tails[mid]] < targetOf[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        int[][] anchors = new int[length][];
+        for (int n = length - 1, i = tails[length - 1]; n >= 0; n--, i = previous[i]) {
+            anchors[n] = new int[]{i0 + i, targetOf[i]};
+        }
+        return anchors;
+    }
+
+    /**
+     * Aligns source range [i0, i1) with target range [j0, j1), into the script of the edits of the range.
+     */
+    @SuppressWarnings("serial")
+    private final class Gap extends RecursiveTask<Script> {
+
+        private final List<T> source;
+        private final List<T> target;
+        private final int i0;
+        private final int i1;
+        private final int j0;
+        private final int j1;
+        private double cost;
+
+        Gap(List<T> source, List<T> target, int i0, int i1, int j0, int j1) {
+            this.source = source;
+            this.target = target;
+            this.i0 = i0;
+            this.i1 = i1;
+            this.j0 = j0;
+            this.j1 = j1;
+        }
+
+        @Override
+        protected Script compute() {
+            Script script = new Script();
+            int[][] anchors = i0 < i1 && j0 < j1 ? anchors(source, target, i0, i1, j0, j1) : new int[0][];
+            if (anchors.length == 0) {
+                Alignment<T> alignment = gapAligner.align(source.subList(i0, i1), target.subList(j0, j1));
+                script.addAll(alignment);
+                cost = alignment.cost();
+                return script;
+            }
+
+            List<Gap> gaps = new ArrayList<>(anchors.length + 1);
+            int i = i0;
+            int j = j0;
+            for (int[] anchor : anchors) {
+                gaps.add(new Gap(source, target, i, anchor[0], j, anchor[1]));
+                i = anchor[0] + 1;
+                j = anchor[1] + 1;
+            }
+            gaps.add(new Gap(source, target, i, i1, j, j1));
+
+            for (Gap gap : gaps) {
+                if (gap.cells() > FORK_CELLS) {
+                    gap.fork();
+                }
+            }
+
+            for (int n = 0; n < gaps.size(); n++) {
+                Gap gap = gaps.get(n);
+                Script gapScript = gap.cells() > FORK_CELLS ? gap.join() : gap.compute();
+                script.addAll(gapScript);
+                cost += gap.cost;
+                if (n < anchors.length) {
+                    script.add(Operation.EQUAL);
+                }
+            }
+            return script;
+        }
+
+        private long cells() {
+            return (long) (i1 - i0 + 1) * (j1 - j0 + 1);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.edit.Operation;
+
+import java.util.Arrays;
+
+/**
+ * A grid that only stores a contiguous range of columns in each row, used to fill the band of cells around the
+ * diagonal whose cost stays within a bound. Rows are filled top to bottom and the cells of a row left to right, each
+ * row starting at the column set by {@link #beginRow(int, int)}. Cells outside the stored ranges have an infinite cost.
+ */
+final class Band implements Grid {
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final byte NONE = -1;
+
+    private final int rows;
+    private final int columns;
+    private final int[] starts;
+    private final int[] firsts;
+    private final int[] lasts;
+    private double[] costs;
+    private byte[] ops;
+    private int[] lengths;
+    private int size;
+
+    Band(int m, int n) {
+        this.rows = m;
+        this.columns = n;
+        this.starts = new int[m + 1];
+        this.firsts = new int[m + 1];
+        this.lasts = new int[m + 1];
+        int capacity = Math.max(16, Math.min(n + 1, 64));
+        this.costs = new double[capacity];
+        this.ops = new byte[capacity];
+        this.lengths = new int[capacity];
+        Arrays.fill(lasts, -1);
+    }
+
+    /**
+     * Start storing row {@code i} from column {@code first}.
+     */
+    void beginRow(int i, int first) {
+        starts[i] = size;
+        firsts[i] = first;
+        lasts[i] = first - 1;
+    }
+
+    /**
+     * Store the top left cell, with a cost of 0 and no operation. Row 0 must have been started at column 0.
+     */
+    void setOrigin() {
+        int index = index(0, 0);
+        costs[index] = 0;
+        ops[index] = NONE;
+    }
+
+    @Override
+    public int rows() {
+        return rows;
+    }
+
+    @Override
+    public int columns() {
+        return columns;
+    }
+
+    @Override
+    public double cost(int i, int j) {
+        if (j < firsts[i] || j > lasts[i]) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return costs[starts[i] + j - firsts[i]];
+    }
+
+    @Override
+    public Operation op(int i, int j) {
+        if (j < firsts[i] || j > lasts[i]) {
+            return null;
+        }
+        byte op = ops[starts[i] + j - firsts[i]];
+        return op == NONE ? null : OPERATIONS[op];
+    }
+
+    @Override
+    public int length(int i, int j) {
+        return lengths[starts[i] + j - firsts[i]];
+    }
+
+    @Override
+    public void set(int i, int j, double cost, Operation op) {
+        int index = index(i, j);
+        costs[index] = cost;
+        ops[index] = (byte) op.ordinal();
+    }
+
+    @Override
+    public void setTranspose(int i, int j, double cost, int length) {
+        int index = index(i, j);
+        costs[index] = cost;
+        ops[index] = (byte) Operation.TRANSPOSE.ordinal();
+        lengths[index] = length;
+    }
+
+    /**
+     * The storage index of a cell of the current row, extending the row by one column if {@code j} is just past its
+     * last stored column.
+     */
+    private int index(int i, int j) {
+        if (j == lasts[i] + 1) {
+            if (size == costs.length) {
+                int capacity = costs.length << 1;
+                costs = Arrays.copyOf(costs, capacity);
+                ops = Arrays.copyOf(ops, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            lasts[i] = j;
+            size++;
+        }
+        return starts[i] + j - firsts[i];
+    }
+}
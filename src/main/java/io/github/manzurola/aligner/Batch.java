@@ -0,0 +1,107 @@
+package io.github.manzurola.aligner;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Aligns a batch of pairs with a fixed number of workers. The pairs are ordered by the number of cells of their
+ * matrices, largest first, and each worker takes the next pair in that order as soon as it is done with its last one.
+ * Long pairs are therefore started early rather than left to a single worker at the end, and the short pairs at the end
+ * fill in around them.
+ * <p>
+ * Each worker aligns all of its pairs on one thread, so the aligner reuses the {@link Workspace} of that thread from
+ * one pair to the next.
+ */
+final class Batch<T> {
+
+    private final Aligner<T> aligner;
+    private final List<Pair<T>> pairs;
+    private final int[] order;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private Batch(Aligner<T> aligner, List<Pair<T>> pairs) {
+        this.aligner = aligner;
+        this.pairs = pairs;
+        this.order = IntStream.range(0, pairs.size())
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer index) -> pairs.get(index).cells()).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /**
+     * Align every pair, passing each alignment to {@code consumer} with the index of its pair, in no particular order.
+     * One worker runs on the calling thread and the others on {@code executor}. Returns once all pairs are aligned, or
+     * throws the first exception thrown by the aligner or the consumer once every worker has stopped, with the
+     * exceptions of the other workers suppressed by it.
+     */
+    static <T> void run(Aligner<T> aligner,
+                        List<Pair<T>> pairs,
+                        Executor executor,
+                        int workers,
+                        ObjIntConsumer<? super Alignment<T>> consumer) {
+        Batch<T> batch = new Batch<>(aligner, new ArrayList<>(pairs));
+        int n = Math.min(workers, pairs.size());
+        List<CompletableFuture<Void>> futures = new ArrayList<>(n);
+        for (int w = 1; w < n; w++) {
+            futures.add(CompletableFuture.runAsync(() -> batch.work(consumer), executor));
+        }
+        Throwable failure = null;
+        try {
+            batch.work(consumer);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        } finally {
+            // Wait for the other workers even if this one failed, so that none calls the consumer after returning
+            for (CompletableFuture<Void> future : futures) {
+                try {
+                    future.join();
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    if (failure == null) {
+                        failure = cause;
+                    } else if (failure != cause) {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new CompletionException(failure);
+        }
+    }
+
+    private void work(ObjIntConsumer<? super Alignment<T>> consumer) {
+        int n;
+        while ((n = next.getAndIncrement()) < order.length) {
+            int index = order[n];
+            Pair<T> pair = pairs.get(index);
+            try {
+                consumer.accept(aligner.align(pair.source(), pair.target()), index);
+            } catch (RuntimeException | Error e) {
+                cancel();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Stop handing out pairs, once one has failed.
+     */
+    private void cancel() {
+        next.set(order.length);
+    }
+}
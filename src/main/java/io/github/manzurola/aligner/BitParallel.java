@@ -0,0 +1,207 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.edit.Operation;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Bit-parallel computation of the unit cost levenshtein matrix, after Myers (1999) and the block based formulation of
+ * Hyyrö (2003). The matrix is computed one column per target token, with the vertical cost differences of 64 source
+ * tokens packed into each machine word. Sources longer than 64 tokens span several words (blocks), with the horizontal
+ * difference carried from one block into the next.
+ * <p>
+ * The source tokens that equal a target token are described by its match vector, one bit per source token, supplied by
+ * the caller. Bit {@code i % 64} of word {@code i / 64} is set if source token {@code i} equals the target token.
+ * <p>
+ * Keeping the vertical differences of every column allows recovering the cost of any cell, and backtracking the same
+ * path as {@link AlignerImpl} does for unit costs, with 2 bits per cell instead of a full matrix cell.
+ */
+final class BitParallel {
+
+    /**
+     * Receives the operations of the path backtracked from the bottom right cell, in reverse order.
+     */
+    @FunctionalInterface
+    interface Trace {
+        /**
+         * @param op the operation at cell (i, j).
+         */
+        void step(Operation op, int i, int j);
+    }
+
+    private final int m;
+    private final int n;
+    private final int blocks;
+    private final long[] pv;
+    private final long[] mv;
+    private final int distance;
+
+    private BitParallel(int m, int n, int blocks, long[] pv, long[] mv, int distance) {
+        this.m = m;
+        this.n = n;
+        this.blocks = blocks;
+        this.pv = pv;
+        this.mv = mv;
+        this.distance = distance;
+    }
+
+    /**
+     * The number of words needed for a source of length {@code m}.
+     */
+    static int blocks(int m) {
+        return Math.max(1, (m + 63) >>> 6);
+    }
+
+    /**
+     * Compute the levenshtein distance between a source of length {@code m} and a target of length {@code n}, keeping
+     * only the current column. O(m / 64) memory.
+     *
+     * @param matches the match vector of each target token.
+     */
+    static int distance(int m, int n, IntFunction<long[]> matches) {
+        if (m == 0) {
+            return n;
+        }
+        int blocks = blocks(m);
+        long[] pv = new long[blocks];
+        long[] mv = new long[blocks];
+        Arrays.fill(pv, -1L);
+        int lastBit = (m - 1) & 63;
+        int score = m;
+        for (int j = 0; j < n; j++) {
+            long[] eq = matches.apply(j);
+            int carry = 1;
+            for (int b = 0; b < blocks; b++) {
+                carry = advance(pv, mv, b, b, eq[b], carry, b == blocks - 1 ? lastBit : 63);
+            }
+            score += carry;
+        }
+        return score;
+    }
+
+    /**
+     * Compute the levenshtein matrix between a source of length {@code m} and a target of length {@code n}, keeping
+     * the vertical differences of every column for {@link #backtrack(IndexEqualizer, Trace)}.
+     *
+     * @param matches the match vector of each target token.
+     */
+    static BitParallel fill(int m, int n, IntFunction<long[]> matches) {
+        int blocks = blocks(m);
+        long[] pv = new long[(n + 1) * blocks];
+        long[] mv = new long[(n + 1) * blocks];
+        if (m == 0) {
+            return new BitParallel(m, n, blocks, pv, mv, n);
+        }
+        Arrays.fill(pv, 0, blocks, -1L);
+        int lastBit = (m - 1) & 63;
+        int score = m;
+        for (int j = 0; j < n; j++) {
+            long[] eq = matches.apply(j);
+            int from = j * blocks;
+            int to = from + blocks;
+            int carry = 1;
+            for (int b = 0; b < blocks; b++) {
+                carry = advance(pv, mv, from + b, to + b, eq[b], carry, b == blocks - 1 ? lastBit : 63);
+            }
+            score += carry;
+        }
+        return new BitParallel(m, n, blocks, pv, mv, score);
+    }
+
+    /**
+     * Advance one block by one column, reading the vertical differences at {@code from} and writing them at {@code
+     * to}.
+     *
+     * @param hin    the horizontal difference entering the block from above, one of -1, 0 or 1.
+     * @param outBit the bit of the last row of the block.
+     * @return the horizontal difference leaving the block at {@code outBit}.
+     */
+    private static int advance(long[] pv, long[] mv, int from, int to, long eq, int hin, int outBit) {
+        long p = pv[from];
+        long mm = mv[from];
+        long hinIsNeg = hin < 0 ? 1L : 0L;
+        long xv = eq | mm;
+        eq |= hinIsNeg;
+        long xh = (((eq & p) + p) ^ p) | eq;
+        long ph = mm | ~(xh | p);
+        long mh = p & xh;
+        int hout = (int) ((ph >>> outBit) & 1L) - (int) ((mh >>> outBit) & 1L);
+        ph = (ph << 1) | (hin > 0 ? 1L : 0L);
+        mh = (mh << 1) | hinIsNeg;
+        pv[to] = mh | ~(xv | ph);
+        mv[to] = ph & xv;
+        return hout;
+    }
+
+    int distance() {
+        return distance;
+    }
+
+    /**
+     * Walk back from the bottom right cell to the top left one, choosing the same operations as {@link AlignerImpl}:
+     * equal tokens are always matched, otherwise substitute, insert and delete are preferred in that order.
+     */
+    void backtrack(IndexEqualizer equalizer, Trace trace) {
+        int i = m;
+        int j = n;
+        int cost = distance;
+        while (i != 0 || j != 0) {
+            if (i == 0) {
+                trace.step(Operation.INSERT, i, j);
+                j -= 1;
+            } else if (j == 0) {
+                trace.step(Operation.DELETE, i, j);
+                i -= 1;
+            } else if (equalizer.isEqual(i - 1, j - 1)) {
+                trace.step(Operation.EQUAL, i, j);
+                i -= 1;
+                j -= 1;
+            } else {
+                int left = cost(i, j - 1);
+                int diagonal = left - delta(i, j - 1);
+                if (diagonal + 1 == cost) {
+                    trace.step(Operation.SUBSTITUTE, i, j);
+                    cost = diagonal;
+                    i -= 1;
+                    j -= 1;
+                } else if (left + 1 == cost) {
+                    trace.step(Operation.INSERT, i, j);
+                    cost = left;
+                    j -= 1;
+                } else {
+                    trace.step(Operation.DELETE, i, j);
+                    cost -= delta(i, j);
+                    i -= 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * The cost of cell (i, j), i.e. the cost of the top cell of the column plus the vertical differences above i.
+     */
+    private int cost(int i, int j) {
+        int offset = j * blocks;
+        int cost = j;
+        int full = i >>> 6;
+        for (int b = 0; b < full; b++) {
+            cost += Long.bitCount(pv[offset + b]) - Long.bitCount(mv[offset + b]);
+        }
+        int rest = i & 63;
+        if (rest != 0) {
+            long mask = (1L << rest) - 1;
+            cost += Long.bitCount(pv[offset + full] & mask) - Long.bitCount(mv[offset + full] & mask);
+        }
+        return cost;
+    }
+
+    /**
+     * The vertical difference between cell (i, j) and cell (i - 1, j).
+     */
+    private int delta(int i, int j) {
+        int index = j * blocks + ((i - 1) >>> 6);
+        int bit = (i - 1) & 63;
+        return (int) ((pv[index] >>> bit) & 1L) - (int) ((mv[index] >>> bit) & 1L);
+    }
+}
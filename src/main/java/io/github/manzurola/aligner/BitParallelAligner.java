@@ -0,0 +1,139 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.metrics.Equalizer;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * A levenshtein aligner for the default unit costs, computing the matrix 64 cells at a time with {@link BitParallel}.
+ * The alignment is the same as that of {@link AlignerImpl} with unit costs and no comparator.
+ * <p>
+ * With the default equalizer, the match vectors are built once per distinct source token by hashing. A custom
+ * equalizer is not assumed to agree with {@code hashCode}, so it is called for every source token of each target
+ * token instead, unless a key function is supplied to intern the tokens by.
+ */
+final class BitParallelAligner<T> implements Aligner<T> {
+
+    private final Equalizer<T> equalizer;
+    private final Function<? super T, ?> key;
+    private final boolean trimPrefix;
+
+    public BitParallelAligner(Equalizer<T> equalizer, Function<? super T, ?> key, boolean trimPrefix) {
+        this.equalizer = Objects.requireNonNull(equalizer);
+        this.key = key;
+        this.trimPrefix = trimPrefix;
+    }
+
+    /**
+     * Only the middle between the common prefix and suffix is computed bit-parallel, see {@link Trim}.
+     */
+    @Override
+    public final Alignment<T> align(List<T> source,
+                                    List<T> target) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
+
+        T[] sourceTokens = (T[]) source.toArray();
+        T[] targetTokens = (T[]) target.toArray();
+        Trim trim = trim(sourceTokens, targetTokens);
+        T[] sourceArr = trim.source(sourceTokens);
+        T[] targetArr = trim.target(targetTokens);
+
+        IntFunction<long[]> matches;
+        IndexEqualizer equal;
+        if (key != null) {
+            Interner<T> interner = new Interner<>(key);
+            int[] sourceIds = interner.intern(sourceArr);
+            int[] targetIds = interner.intern(targetArr);
+            matches = new MatchVectors(sourceIds, targetIds);
+            equal = (i, j) -> sourceIds[i] == targetIds[j];
+        } else {
+            matches = matches(sourceArr, targetArr, false);
+            equal = (i, j) -> equalizer.isEqual(sourceArr[i], targetArr[j]);
+        }
+        BitParallel matrix = BitParallel.fill(sourceArr.length, targetArr.length, matches);
+
+        Script script = new Script();
+        trim.addPrefix(script);
+        script.beginBacktrack();
+        matrix.backtrack(equal, (op, i, j) -> script.add(op));
+        script.endBacktrack();
+        trim.addSuffix(script);
+        return Alignment.of(source, target, script, matrix.distance());
+    }
+
+    /**
+     * Computes the distance keeping a single column, with the shorter list packed into the words of the column.
+     */
+    @Override
+    public final Score score(List<T> source,
+                             List<T> target) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
+
+        T[] sourceTokens = (T[]) source.toArray();
+        T[] targetTokens = (T[]) target.toArray();
+        Trim trim = trim(sourceTokens, targetTokens);
+        T[] sourceArr = trim.source(sourceTokens);
+        T[] targetArr = trim.target(targetTokens);
+
+        // Unit cost levenshtein is symmetric, so the shorter list can always be the one packed into words
+        boolean swapped = targetArr.length < sourceArr.length;
+        T[] packed = swapped ? targetArr : sourceArr;
+        T[] other = swapped ? sourceArr : targetArr;
+        int distance = BitParallel.distance(packed.length, other.length, matches(packed, other, swapped));
+        return Score.of(distance, source.size(), target.size());
+    }
+
+    @Override
+    public final Optional<Alignment<T>> alignWithin(List<T> source,
+                                                    List<T> target,
+                                                    double maxCost) {
+        if (!(score(source, target).cost() <= maxCost)) {
+            return Optional.empty();
+        }
+        return Optional.of(align(source, target));
+    }
+
+    private Trim trim(T[] source, T[] target) {
+        return Trim.of((i, j) -> equalizer.isEqual(source[i], target[j]), source.length, target.length, trimPrefix);
+    }
+
+    /**
+     * The match vectors of the {@code other} tokens against the {@code packed} tokens.
+     *
+     * @param swapped whether the packed tokens are from the target, in which case the equalizer is called with the
+     *                other token first.
+     */
+    private IntFunction<long[]> matches(T[] packed, T[] other, boolean swapped) {
+        if (key != null) {
+            Interner<T> interner = new Interner<>(key);
+            return new MatchVectors(interner.intern(packed), interner.intern(other));
+        }
+        int blocks = BitParallel.blocks(packed.length);
+        if (DefaultMetrics.isDefault(equalizer)) {
+            Map<T, long[]> vectors = new HashMap<>();
+            for (int i = 0; i < packed.length; i++) {
+                vectors.computeIfAbsent(packed[i], token -> new long[blocks])[i >>> 6] |= 1L << i;
+            }
+            long[] none = new long[blocks];
+            return j -> vectors.getOrDefault(other[j], none);
+        }
+        long[] vector = new long[blocks];
+        return j -> {
+            Arrays.fill(vector, 0L);
+            T token = other[j];
+            for (int i = 0; i < packed.length; i++) {
+                boolean equal = swapped
+                        ? equalizer.isEqual(token, packed[i])
+                        : equalizer.isEqual(packed[i], token);
+                if (equal) {
+                    vector[i >>> 6] |= 1L << i;
+                }
+            }
+            return vector;
+        };
+    }
+}
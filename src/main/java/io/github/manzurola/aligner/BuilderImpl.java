@@ -3,17 +3,31 @@ package io.github.manzurola.aligner;
 import io.github.manzurola.aligner.metrics.*;
 
 import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 final class BuilderImpl<T> implements Aligner.Builder<T> {
 
     private Equalizer<T> equalizer;
+    private Function<? super T, ?> key;
     private Comparator<T> comparator;
+    private int maxTranspositionSpan;
+    private boolean trimPrefix;
+    private boolean memoizeSubstitutions;
+    private int parallelism;
+    private int tileSize;
+    private int maxRetainedCells;
+    private ForkJoinPool pool;
 
     private DeleteCost<T> deleteCost;
     private InsertCost<T> insertCost;
     private SubstituteCost<T> substituteCost;
     private TransposeCost<T> transposeCost;
 
+    private Aligner.Strategy strategy;
+
     @Override
     public final Aligner.Builder<T> setDeleteCost(DeleteCost<T> deleteCost) {
         this.deleteCost = deleteCost;
@@ -44,17 +58,148 @@ final class BuilderImpl<T> implements Aligner.Builder<T> {
         return this;
     }
 
+    @Override
+    public final Aligner.Builder<T> setKey(Function<? super T, ?> key) {
+        this.key = key;
+        return this;
+    }
+
     @Override
     public final Aligner.Builder<T> setComparator(Comparator<T> comparator) {
         this.comparator = comparator;
         return this;
     }
 
+    @Override
+    public final Aligner.Builder<T> setMaxTranspositionSpan(int maxTranspositionSpan) {
+        if (maxTranspositionSpan < 2) {
+            throw new IllegalArgumentException("transpositions span at least 2 tokens");
+        }
+        this.maxTranspositionSpan = maxTranspositionSpan;
+        return this;
+    }
+
+    @Override
+    public final Aligner.Builder<T> setTrimCommonPrefix(boolean trimPrefix) {
+        this.trimPrefix = trimPrefix;
+        return this;
+    }
+
+    @Override
+    public final Aligner.Builder<T> setMemoizeSubstituteCost(boolean memoizeSubstitutions) {
+        this.memoizeSubstitutions = memoizeSubstitutions;
+        return this;
+    }
+
+    @Override
+    public final Aligner.Builder<T> setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    @Override
+    public final Aligner.Builder<T> setPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+        return this;
+    }
+
+    @Override
+    public final Aligner.Builder<T> setTileSize(int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("tile size must be positive");
+        }
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    @Override
+    public final Aligner.Builder<T> setMaxRetainedCells(int maxRetainedCells) {
+        if (maxRetainedCells < 0) {
+            throw new IllegalArgumentException("max retained cells must not be negative");
+        }
+        this.maxRetainedCells = maxRetainedCells;
+        return this;
+    }
+
+    @Override
+    public final Aligner.Builder<T> setStrategy(Aligner.Strategy strategy) {
+        this.strategy = strategy;
+        return this;
+    }
+
     @Override
     public final Aligner<T> build() {
+        switch (Objects.requireNonNull(strategy)) {
+            case HIRSCHBERG:
+                return new HirschbergAligner<>(
+                        equalizer,
+                        key,
+                        comparator,
+                        maxTranspositionSpan,
+                        trimPrefix,
+                        memoizeSubstitutions,
+                        maxRetainedCells,
+                        deleteCost,
+                        insertCost,
+                        substituteCost,
+                        transposeCost
+                );
+            case ANCHORED:
+                return new AnchoredAligner<>(
+                        fullMatrix(false),
+                        key == null && DefaultMetrics.isDefault(equalizer) ? Function.identity() : key,
+                        pool
+                );
+            case FULL_MATRIX:
+            default:
+                return fullMatrix(parallelism > 1);
+        }
+    }
+
+    @Override
+    public final IncrementalAligner<T> buildIncremental(List<T> source) {
+        return incremental(source, -1);
+    }
+
+    @Override
+    public final IncrementalAligner<T> buildIncremental(List<T> source, int bandWidth) {
+        if (bandWidth < 0) {
+            throw new IllegalArgumentException("band width must not be negative");
+        }
+        return incremental(source, bandWidth);
+    }
+
+    private IncrementalAligner<T> incremental(List<T> source, int bandWidth) {
+        return new IncrementalAlignerImpl<>(
+                Objects.requireNonNull(source),
+                bandWidth,
+                equalizer,
+                key,
+                comparator,
+                maxTranspositionSpan,
+                deleteCost,
+                insertCost,
+                substituteCost,
+                transposeCost
+        );
+    }
+
+    private Aligner<T> fullMatrix(boolean parallel) {
+        if (comparator == null && DefaultMetrics.isUnitCost(deleteCost, insertCost, substituteCost)) {
+            return new BitParallelAligner<>(equalizer, key, trimPrefix);
+        }
         return new AlignerImpl<>(
                 equalizer,
+                key,
                 comparator,
+                maxTranspositionSpan,
+                trimPrefix,
+                memoizeSubstitutions,
+                maxRetainedCells,
+                parallel ? new Wavefront(pool, parallelism, tileSize) : null,
                 deleteCost,
                 insertCost,
                 substituteCost,
@@ -0,0 +1,87 @@
+package io.github.manzurola.aligner;
+
+import java.util.Objects;
+
+/**
+ * A snapshot of the statistics of a {@link CachedAligner}.
+ */
+public final class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    private CacheStats(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    public static CacheStats of(long hits, long misses, long evictions, int size) {
+        return new CacheStats(hits, misses, evictions, size);
+    }
+
+    /**
+     * The number of alignments served from the cache, including those inverted from the reverse pair.
+     */
+    public final long hits() {
+        return hits;
+    }
+
+    /**
+     * The number of alignments that had to be computed.
+     */
+    public final long misses() {
+        return misses;
+    }
+
+    /**
+     * The number of alignments dropped from the cache to make room for newer ones.
+     */
+    public final long evictions() {
+        return evictions;
+    }
+
+    /**
+     * The number of alignments currently cached.
+     */
+    public final int size() {
+        return size;
+    }
+
+    /**
+     * The fraction of requests that were hits, or 0 if there were none.
+     */
+    public final double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CacheStats stats = (CacheStats) o;
+        return hits == stats.hits &&
+               misses == stats.misses &&
+               evictions == stats.evictions &&
+               size == stats.size;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(hits, misses, evictions, size);
+    }
+
+    @Override
+    public final String toString() {
+        return "CacheStats{" +
+               "hits=" + hits +
+               ", misses=" + misses +
+               ", evictions=" + evictions +
+               ", size=" + size +
+               '}';
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.manzurola.aligner;
+
+import java.util.List;
+
+/**
+ * An aligner that remembers the alignments of the pairs it has seen, created by {@link Aligner#cached(Aligner, int)}.
+ *
+ * @param <T> the type of elements this aligner supports.
+ */
+public interface CachedAligner<T> extends Aligner<T> {
+
+    /**
+     * The statistics of the cache since it was created or last cleared.
+     */
+    CacheStats stats();
+
+    /**
+     * Remove all cached alignments and reset the statistics.
+     */
+    void clear();
+
+    /**
+     * The aligner that computes the alignments missing from the cache.
+     *
+     * @see Aligner#align(List, List)
+     */
+    Aligner<T> delegate();
+}
@@ -0,0 +1,223 @@
+package io.github.manzurola.aligner;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches alignments in a least recently used map, keyed by the contents of the source and target lists. The map is
+ * split into stripes by the hash of the key, each with its own lock and an equal share of the capacity, so that threads
+ * aligning different pairs seldom wait for each other. Eviction is least recently used within a stripe.
+ * <p>
+ * The lists are copied when an alignment is cached, and the alignment is computed on the copies, so that neither the
+ * key nor the edits change when the caller later modifies its lists. Two threads that miss on the same pair at once
+ * both compute it.
+ * <p>
+ * With symmetric costs, the cost of aligning (b, a) is that of aligning (a, b), and inverting the edits of one gives an
+ * optimal alignment of the other. A miss is then served by the inverse of the reverse pair, if that is cached. Its
+ * edits may differ from those of aligning the pair directly, when several alignments share the optimal cost.
+ */
+final class CachedAlignerImpl<T> implements CachedAligner<T> {
+
+    static final int STRIPES = 16;
+
+    private final Aligner<T> aligner;
+    private final boolean symmetric;
+    private final List<Stripe<T>> stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    CachedAlignerImpl(Aligner<T> aligner, int maxEntries, boolean symmetric) {
+        this.aligner = Objects.requireNonNull(aligner);
+        this.symmetric = symmetric;
+        int count = Math.min(STRIPES, maxEntries);
+        int capacity = (maxEntries + count - 1) / count;
+        this.stripes = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            stripes.add(new Stripe<>(capacity, evictions));
+        }
+    }
+
+    @Override
+    public final Alignment<T> align(List<T> source, List<T> target) {
+        Key<T> key = Key.of(source, target);
+        Alignment<T> alignment = lookup(key);
+        if (alignment != null) {
+            return alignment;
+        }
+        misses.increment();
+        Key<T> copy = key.copy();
+        alignment = aligner.align(copy.source, copy.target);
+        Stripe<T> stripe = stripe(copy);
+        synchronized (stripe) {
+            stripe.put(copy, alignment);
+        }
+        return alignment;
+    }
+
+    /**
+     * Served from the cache if possible. Otherwise computed by the delegate, which may stop early, and not cached.
+     */
+    @Override
+    public final Optional<Alignment<T>> alignWithin(List<T> source, List<T> target, double maxCost) {
+        Alignment<T> alignment = lookup(Key.of(source, target));
+        if (alignment != null) {
+            return Optional.of(alignment).filter(a -> a.cost() <= maxCost);
+        }
+        misses.increment();
+        return aligner.alignWithin(source, target, maxCost);
+    }
+
+    /**
+     * Served from the cache if possible. Otherwise computed by the delegate, which may not build the edits, and not
+     * cached.
+     */
+    @Override
+    public final Score score(List<T> source, List<T> target) {
+        Alignment<T> alignment = lookup(Key.of(source, target));
+        if (alignment != null) {
+            return Score.of(alignment);
+        }
+        misses.increment();
+        return aligner.score(source, target);
+    }
+
+    @Override
+    public final CacheStats stats() {
+        int size = 0;
+        for (Stripe<T> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return CacheStats.of(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    @Override
+    public final void clear() {
+        for (Stripe<T> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    @Override
+    public final Aligner<T> delegate() {
+        return aligner;
+    }
+
+    /**
+     * Find the alignment of the pair, or invert that of the reverse pair, counting a hit if either is found.
+     *
+     * @return the alignment, or null if neither is cached.
+     */
+    private Alignment<T> lookup(Key<T> key) {
+        Alignment<T> alignment = get(key);
+        if (alignment == null && symmetric) {
+            Alignment<T> reverse = get(key.reverse());
+            alignment = reverse == null ? null : reverse.invert();
+        }
+        if (alignment != null) {
+            hits.increment();
+        }
+        return alignment;
+    }
+
+    private Alignment<T> get(Key<T> key) {
+        Stripe<T> stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.get(key);
+        }
+    }
+
+    private Stripe<T> stripe(Key<T> key) {
+        int hash = key.hash ^ (key.hash >>> 16);
+        return stripes.get(Math.floorMod(hash, stripes.size()));
+    }
+
+    /**
+     * A source and target list, compared by their contents.
+     */
+    private static final class Key<T> {
+
+        private final List<T> source;
+        private final List<T> target;
+        private final int sourceHash;
+        private final int targetHash;
+        private final int hash;
+
+        private Key(List<T> source, List<T> target, int sourceHash, int targetHash) {
+            this.source = source;
+            this.target = target;
+            this.sourceHash = sourceHash;
+            this.targetHash = targetHash;
+            this.hash = 31 * sourceHash + targetHash;
+        }
+
+        static <T> Key<T> of(List<T> source, List<T> target) {
+            return new Key<>(Objects.requireNonNull(source), Objects.requireNonNull(target),
+                    source.hashCode(), target.hashCode());
+        }
+
+        Key<T> reverse() {
+            return new Key<>(target, source, targetHash, sourceHash);
+        }
+
+        /**
+         * A key over unmodifiable copies of the lists.
+         */
+        Key<T> copy() {
+            return new Key<>(
+                    Collections.unmodifiableList(new ArrayList<>(source)),
+                    Collections.unmodifiableList(new ArrayList<>(target)),
+                    sourceHash,
+                    targetHash
+            );
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key<?> key = (Key<?>) o;
+            return hash == key.hash &&
+                   source.equals(key.source) &&
+                   target.equals(key.target);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * One stripe of the cache, a map in access order that drops its least recently used entry when full. Guarded by
+     * its own monitor.
+     */
+    @SuppressWarnings("serial")
+    private static final class Stripe<T> extends LinkedHashMap<Key<T>, Alignment<T>> {
+
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Stripe(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key<T>, Alignment<T>> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
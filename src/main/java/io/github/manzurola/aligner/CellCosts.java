@@ -0,0 +1,28 @@
+package io.github.manzurola.aligner;
+
+/**
+ * The costs of the operations on the tokens of a single alignment, by the indices of the tokens, for filling the cells
+ * of a matrix regardless of the type of the tokens.
+ */
+interface CellCosts {
+
+    /**
+     * The cost of deleting source token {@code i}.
+     */
+    double delete(int i);
+
+    /**
+     * The cost of inserting target token {@code j}.
+     */
+    double insert(int j);
+
+    /**
+     * The cost of substituting source token {@code i} with target token {@code j}.
+     */
+    double substitute(int i, int j);
+
+    /**
+     * The cost of transposing source tokens [i0, i1) into target tokens [j0, j1).
+     */
+    double transpose(int i0, int i1, int j0, int j1);
+}
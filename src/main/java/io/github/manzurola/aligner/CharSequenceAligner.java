@@ -0,0 +1,64 @@
+package io.github.manzurola.aligner;
+
+import java.nio.CharBuffer;
+import java.util.Objects;
+
+/**
+ * A unit cost levenshtein aligner for text, aligning the unicode code points of two character sequences. Characters
+ * are never boxed: code points are compared as ints, 64 at a time, by a levenshtein {@link IntAligner}. A character
+ * outside the basic multilingual plane, stored as a surrogate pair, counts as a single token.
+ * <p>
+ * Scores and ratios allocate no tokens at all. Alignments hold the same edits that {@link Aligner#levenshtein()} would
+ * produce for lists of code points, and only box a code point when a segment is read.
+ */
+public final class CharSequenceAligner {
+
+    private static final CharSequenceAligner LEVENSHTEIN = new CharSequenceAligner();
+
+    private final IntAligner codePointAligner = IntAligner.levenshtein();
+
+    private CharSequenceAligner() {
+    }
+
+    /**
+     * Get the unit cost levenshtein text aligner.
+     */
+    public static CharSequenceAligner levenshtein() {
+        return LEVENSHTEIN;
+    }
+
+    /**
+     * Align the code points of source and target.
+     *
+     * @return an alignment of code points, with segment positions counted in code points.
+     */
+    public Alignment<Integer> align(CharSequence source, CharSequence target) {
+        return codePointAligner.align(codePoints(source), codePoints(target));
+    }
+
+    public Alignment<Integer> align(char[] source, char[] target) {
+        return align(CharBuffer.wrap(source), CharBuffer.wrap(target));
+    }
+
+    /**
+     * Compute the cost of aligning the code points of source and target, without building the edits.
+     */
+    public Score score(CharSequence source, CharSequence target) {
+        return codePointAligner.score(codePoints(source), codePoints(target));
+    }
+
+    public Score score(char[] source, char[] target) {
+        return score(CharBuffer.wrap(source), CharBuffer.wrap(target));
+    }
+
+    /**
+     * The normalized cost ratio, same as {@code score(source, target).ratio()}.
+     */
+    public double ratio(CharSequence source, CharSequence target) {
+        return score(source, target).ratio();
+    }
+
+    private static int[] codePoints(CharSequence text) {
+        return Objects.requireNonNull(text).codePoints().toArray();
+    }
+}
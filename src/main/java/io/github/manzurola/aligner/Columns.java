@@ -0,0 +1,113 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.edit.Operation;
+
+import java.util.Arrays;
+
+/**
+ * A grid over a fixed source that grows by one column at a time as target tokens arrive. Each column only stores a
+ * contiguous range of rows, all of them or those of a band around the diagonal, set by {@link #beginColumn(int, int)}.
+ * Columns are filled left to right and the cells of a column top to bottom. Cells outside the stored ranges have an
+ * infinite cost.
+ */
+final class Columns implements Grid {
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final byte NONE = -1;
+
+    private final int rows;
+    private int columns = -1;
+    private int[] starts = new int[16];
+    private int[] firsts = new int[16];
+    private int[] lasts = new int[16];
+    private double[] costs;
+    private byte[] ops;
+    private int[] lengths;
+    private int size;
+
+    Columns(int m) {
+        this.rows = m;
+        int capacity = Math.max(16, m + 1);
+        this.costs = new double[capacity];
+        this.ops = new byte[capacity];
+        this.lengths = new int[capacity];
+    }
+
+    /**
+     * Start storing column {@code j}, which must be the next one, from row {@code first} down to row {@code last}.
+     */
+    void beginColumn(int j, int first, int last) {
+        if (j == starts.length) {
+            starts = Arrays.copyOf(starts, j << 1);
+            firsts = Arrays.copyOf(firsts, j << 1);
+            lasts = Arrays.copyOf(lasts, j << 1);
+        }
+        int needed = size + Math.max(0, last - first + 1);
+        if (needed > costs.length) {
+            int capacity = Math.max(needed, costs.length << 1);
+            costs = Arrays.copyOf(costs, capacity);
+            ops = Arrays.copyOf(ops, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        starts[j] = size;
+        firsts[j] = first;
+        lasts[j] = last;
+        size = needed;
+        columns = j;
+    }
+
+    /**
+     * Store the top left cell, with a cost of 0 and no operation. Column 0 must have been started at row 0.
+     */
+    void setOrigin() {
+        costs[starts[0]] = 0;
+        ops[starts[0]] = NONE;
+    }
+
+    @Override
+    public int rows() {
+        return rows;
+    }
+
+    @Override
+    public int columns() {
+        return columns;
+    }
+
+    @Override
+    public double cost(int i, int j) {
+        if (i < firsts[j] || i > lasts[j]) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return costs[starts[j] + i - firsts[j]];
+    }
+
+    @Override
+    public Operation op(int i, int j) {
+        if (i < firsts[j] || i > lasts[j]) {
+            return null;
+        }
+        byte op = ops[starts[j] + i - firsts[j]];
+        return op == NONE ? null : OPERATIONS[op];
+    }
+
+    @Override
+    public int length(int i, int j) {
+        return lengths[starts[j] + i - firsts[j]];
+    }
+
+    @Override
+    public void set(int i, int j, double cost, Operation op) {
+        int index = starts[j] + i - firsts[j];
+        costs[index] = cost;
+        ops[index] = (byte) op.ordinal();
+    }
+
+    @Override
+    public void setTranspose(int i, int j, double cost, int length) {
+        int index = starts[j] + i - firsts[j];
+        costs[index] = cost;
+        ops[index] = (byte) Operation.TRANSPOSE.ordinal();
+        lengths[index] = length;
+    }
+}
@@ -0,0 +1,211 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.metrics.DeleteCost;
+import io.github.manzurola.aligner.metrics.InsertCost;
+import io.github.manzurola.aligner.metrics.SubstituteCost;
+import io.github.manzurola.aligner.metrics.TransposeCost;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * The costs of the operations on the tokens of a single alignment, computed before filling the matrix. Delete and
+ * insert costs only depend on one token, so they are computed once per source and target token rather than once per
+ * cell.
+ * <p>
+ * Substitute costs depend on a pair of tokens and are computed as cells need them. When memoized, source and target
+ * tokens are interned by {@code equals} and each distinct pair is computed once, in a hash table that only holds the
+ * pairs the cells asked for. Tokens that are equal must then have the same substitute costs. The table stops growing
+ * at {@link Memo#MAX_SIZE} costs, after which the costs of pairs it does not hold are computed every time.
+ * <p>
+ * Transposed blocks are copied for the transpose cost, and blocks longer than a pair are passed sorted by the
+ * comparator.
+ */
+final class Costs<T> implements CellCosts {
+
+    private final T[] source;
+    private final T[] target;
+    private final double[] delete;
+    private final double[] insert;
+    private final SubstituteCost<T> substituteCost;
+    private final TransposeCost<T> transposeCost;
+    private final Comparator<T> comparator;
+    private final int[] sourceIds;
+    private final int[] targetIds;
+    private final Memo memo;
+
+    private Costs(T[] source,
+                  T[] target,
+                  double[] delete,
+                  double[] insert,
+                  SubstituteCost<T> substituteCost,
+                  TransposeCost<T> transposeCost,
+                  Comparator<T> comparator,
+                  int[] sourceIds,
+                  int[] targetIds,
+                  Memo memo) {
+        this.source = source;
+        this.target = target;
+        this.delete = delete;
+        this.insert = insert;
+        this.substituteCost = substituteCost;
+        this.transposeCost = transposeCost;
+        this.comparator = comparator;
+        this.sourceIds = sourceIds;
+        this.targetIds = targetIds;
+        this.memo = memo;
+    }
+
+    static <T> Costs<T> of(T[] source,
+                           T[] target,
+                           DeleteCost<T> deleteCost,
+                           InsertCost<T> insertCost,
+                           SubstituteCost<T> substituteCost,
+                           TransposeCost<T> transposeCost,
+                           Comparator<T> comparator,
+                           boolean memoize) {
+        double[] delete = new double[source.length];
+        for (int i = 0; i < source.length; i++) {
+            delete[i] = deleteCost.getCost(source[i]);
+        }
+        double[] insert = new double[target.length];
+        for (int j = 0; j < target.length; j++) {
+            insert[j] = insertCost.getCost(target[j]);
+        }
+        if (!memoize) {
+            return new Costs<>(source, target, delete, insert, substituteCost, transposeCost, comparator, null,
+                    null, null);
+        }
+        int[] sourceIds = new Interner<T>(Function.identity()).intern(source);
+        int[] targetIds = new Interner<T>(Function.identity()).intern(target);
+        return new Costs<>(source, target, delete, insert, substituteCost, transposeCost, comparator, sourceIds,
+                targetIds, new Memo());
+    }
+
+    /**
+     * Costs over the same tokens with a memo of their own, so that another thread can use them.
+     */
+    Costs<T> copy() {
+        if (memo == null) {
+            return this;
+        }
+        return new Costs<>(source, target, delete, insert, substituteCost, transposeCost, comparator, sourceIds,
+                targetIds, new Memo());
+    }
+
+    @Override
+    public double delete(int i) {
+        return delete[i];
+    }
+
+    @Override
+    public double insert(int j) {
+        return insert[j];
+    }
+
+    @Override
+    public double substitute(int i, int j) {
+        if (memo == null) {
+            return substituteCost.getCost(source[i], target[j]);
+        }
+        long key = (long) sourceIds[i] << 32 | targetIds[j];
+        double cost = memo.get(key);
+        if (Double.isNaN(cost)) {
+            cost = substituteCost.getCost(source[i], target[j]);
+            memo.put(key, cost);
+        }
+        return cost;
+    }
+
+    @Override
+    public double transpose(int i0, int i1, int j0, int j1) {
+        return transposeCost.getCost(block(source, i0, i1), block(target, j0, j1));
+    }
+
+    private T[] block(T[] tokens, int from, int to) {
+        T[] block = Arrays.copyOfRange(tokens, from, to);
+        if (block.length > 2) {
+            Arrays.sort(block, comparator);
+        }
+        return block;
+    }
+
+    /**
+     * Substitute costs by the ids of their source and target tokens, packed into a long, in an open addressing table
+     * with linear probing. Ids are never negative, so no key is {@link #EMPTY}.
+     */
+    private static final class Memo {
+
+        /**
+         * The most costs a memo holds, in a table of at most twice as many slots.
+         */
+        static final int MAX_SIZE = 1 << 18;
+        private static final long EMPTY = -1L;
+
+        private long[] keys;
+        private double[] values;
+        private int size;
+
+        Memo() {
+            allocate(64);
+        }
+
+        /**
+         * @return the cost of {@code key}, or NaN if it is not held.
+         */
+        double get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+                long k = keys[slot];
+                if (k == key) {
+                    return values[slot];
+                }
+                if (k == EMPTY) {
+                    return Double.NaN;
+                }
+            }
+        }
+
+        /**
+         * Hold the cost of a key that is not held yet, unless the memo is full. NaN costs are not held.
+         */
+        void put(long key, double value) {
+            if (size == MAX_SIZE || Double.isNaN(value)) {
+                return;
+            }
+            if (2 * (size + 1) > keys.length) {
+                long[] oldKeys = keys;
+                double[] oldValues = values;
+                allocate(2 * keys.length);
+                for (int n = 0; n < oldKeys.length; n++) {
+                    if (oldKeys[n] != EMPTY) {
+                        insert(oldKeys[n], oldValues[n]);
+                    }
+                }
+            }
+            insert(key, value);
+            size++;
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new double[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private void insert(long key, double value) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        private static int slot(long key, int mask) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.metrics.*;
+
+/**
+ * The metrics a new {@link Aligner.Builder} or {@link IntAligner.Builder} starts with. They are shared instances so
+ * that a builder can tell whether they were left untouched, and pick a faster algorithm for unit costs.
+ */
+final class DefaultMetrics {
+
+    private static final Equalizer<Object> EQUALIZER = Object::equals;
+    private static final DeleteCost<Object> DELETE_COST = (s) -> 1.0;
+    private static final InsertCost<Object> INSERT_COST = (s) -> 1.0;
+    private static final SubstituteCost<Object> SUBSTITUTE_COST = (s, t) -> 1.0;
+    private static final TransposeCost<Object> TRANSPOSE_COST = (s, t) -> s.length - 1.0;
+
+    private static final IntDeleteCost INT_DELETE_COST = (s) -> 1.0;
+    private static final IntInsertCost INT_INSERT_COST = (s) -> 1.0;
+    private static final IntSubstituteCost INT_SUBSTITUTE_COST = (s, t) -> 1.0;
+    private static final IntTransposeCost INT_TRANSPOSE_COST = (s, t) -> s.length - 1.0;
+
+    private DefaultMetrics() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> Equalizer<T> equalizer() {
+        return (Equalizer<T>) EQUALIZER;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> DeleteCost<T> deleteCost() {
+        return (DeleteCost<T>) DELETE_COST;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> InsertCost<T> insertCost() {
+        return (InsertCost<T>) INSERT_COST;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> SubstituteCost<T> substituteCost() {
+        return (SubstituteCost<T>) SUBSTITUTE_COST;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> TransposeCost<T> transposeCost() {
+        return (TransposeCost<T>) TRANSPOSE_COST;
+    }
+
+    static IntDeleteCost intDeleteCost() {
+        return INT_DELETE_COST;
+    }
+
+    static IntInsertCost intInsertCost() {
+        return INT_INSERT_COST;
+    }
+
+    static IntSubstituteCost intSubstituteCost() {
+        return INT_SUBSTITUTE_COST;
+    }
+
+    static IntTransposeCost intTransposeCost() {
+        return INT_TRANSPOSE_COST;
+    }
+
+    /**
+     * Are these the default unit costs for delete, insert and substitute?
+     */
+    static boolean isUnitCost(DeleteCost<?> deleteCost, InsertCost<?> insertCost, SubstituteCost<?> substituteCost) {
+        return deleteCost == DELETE_COST && insertCost == INSERT_COST && substituteCost == SUBSTITUTE_COST;
+    }
+
+    /**
+     * Are these the default unit costs for delete, insert and substitute of int tokens?
+     */
+    static boolean isIntUnitCost(IntDeleteCost deleteCost,
+                                 IntInsertCost insertCost,
+                                 IntSubstituteCost substituteCost) {
+        return deleteCost == INT_DELETE_COST && insertCost == INT_INSERT_COST && substituteCost == INT_SUBSTITUTE_COST;
+    }
+
+    static boolean isDefault(Equalizer<?> equalizer) {
+        return equalizer == EQUALIZER;
+    }
+}
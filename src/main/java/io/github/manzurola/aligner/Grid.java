@@ -0,0 +1,34 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.edit.Operation;
+
+/**
+ * The cells of a dynamic programming matrix used to align a source of {@link #rows()} tokens with a target of {@link
+ * #columns()} tokens. Each cell holds a cost, the operation that produced it and, for transpositions, the length of the
+ * transposed block.
+ */
+interface Grid {
+
+    /**
+     * The length of the source covered by this grid, i.e. the index of the last row.
+     */
+    int rows();
+
+    /**
+     * The length of the target covered by this grid, i.e. the index of the last column.
+     */
+    int columns();
+
+    double cost(int i, int j);
+
+    Operation op(int i, int j);
+
+    /**
+     * The length of the transposed block ending at this cell. Only meaningful for {@link Operation#TRANSPOSE} cells.
+     */
+    int length(int i, int j);
+
+    void set(int i, int j, double cost, Operation op);
+
+    void setTranspose(int i, int j, double cost, int length);
+}
@@ -0,0 +1,284 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.edit.Operation;
+import io.github.manzurola.aligner.metrics.*;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * An aligner based on Hirschberg's divide and conquer algorithm, which recovers an optimal alignment in linear space.
+ * <p>
+ * The source is split at its middle row and the column where an optimal path crosses that row is found by adding the
+ * costs of reaching the row from the top left corner to the costs of reaching the bottom right corner from it. Only one
+ * row of costs is kept for each direction. Both halves are then aligned recursively, until a sub problem is small
+ * enough to be solved with a full matrix by {@link AlignerImpl}. Memory is O(m + n), time is roughly twice that of the
+ * full matrix.
+ * <p>
+ * The costs follow the same recurrence as {@link AlignerImpl}, including the unit cost edges of the first row and
+ * column, so without a comparator the cost of the alignment is the same up to rounding: it is summed from the costs of
+ * the leaf sub problems rather than accumulated along a single matrix. When several alignments share the optimal cost,
+ * the edits may differ from those of the full matrix. The common prefix is never trimmed.
+ * <p>
+ * Transpositions: whether a transposition can end at a cell depends on the costs up its diagonal, which are not known
+ * on both sides of a split. Split points are therefore chosen on costs without transpositions, and transpositions are
+ * only detected within the leaf sub problems, relative to the costs of that sub problem. A transposition that would
+ * straddle a split boundary is reported as the substitute, insert and delete edits that make up the split path, so
+ * with a comparator the cost may be higher than that of the full matrix.
+ */
+final class HirschbergAligner<T> implements Aligner<T> {
+
+    /**
+     * Sub problems with at most this many cells are solved with a full matrix.
+     */
+    static final int LEAF_CELLS = 1 << 14;
+
+    private final DeleteCost<T> deleteCost;
+    private final InsertCost<T> insertCost;
+    private final SubstituteCost<T> substituteCost;
+    private final boolean transpositions;
+    private final boolean trimPrefix;
+    private final AlignerImpl<T> leafAligner;
+
+    public HirschbergAligner(Equalizer<T> equalizer,
+                             Function<? super T, ?> key,
+                             Comparator<T> comparator,
+                             int maxTranspositionSpan,
+                             boolean trimPrefix,
+                             boolean memoizeSubstitutions,
+                             int maxRetainedCells,
+                             DeleteCost<T> deleteCost,
+                             InsertCost<T> insertCost,
+                             SubstituteCost<T> substituteCost,
+                             TransposeCost<T> transposeCost) {
+        this.deleteCost = Objects.requireNonNull(deleteCost);
+        this.insertCost = Objects.requireNonNull(insertCost);
+        this.substituteCost = Objects.requireNonNull(substituteCost);
+        this.transpositions = comparator != null;
+        this.trimPrefix = trimPrefix;
+        this.leafAligner = new AlignerImpl<>(
+                equalizer,
+                key,
+                comparator,
+                maxTranspositionSpan,
+                trimPrefix,
+                memoizeSubstitutions,
+                maxRetainedCells,
+                null,
+                deleteCost,
+                insertCost,
+                substituteCost,
+                transposeCost
+        );
+    }
+
+    @Override
+    public final Alignment<T> align(List<T> source,
+                                    List<T> target) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
+
+        Run run = new Run(source, target);
+        double cost = run.align(0, run.sourceArr.length, 0, run.targetArr.length);
+        return Alignment.of(source, target, run.script, cost);
+    }
+
+    /**
+     * Scores with the rows of the full matrix when that gives the cost of {@link #align(List, List)}, up to rounding.
+     * With a comparator the full matrix finds transpositions across split boundaries, and with prefix trimming it trims
+     * a prefix that the splits do not, so the alignment is computed and scored instead.
+     */
+    @Override
+    public final Score score(List<T> source,
+                             List<T> target) {
+        if (transpositions || trimPrefix) {
+            return Score.of(align(source, target));
+        }
+        return leafAligner.score(source, target);
+    }
+
+    /**
+     * The state of a single alignment, with the rows that are reused by all splits.
+     */
+    private final class Run {
+
+        private final List<T> source;
+        private final List<T> target;
+        private final T[] sourceArr;
+        private final T[] targetArr;
+        private final IndexEqualizer equalizer;
+        private final Costs<T> costs;
+        private final Script script = new Script();
+
+        private final double[] forward;
+        private final double[] backward;
+        private boolean[] equal;
+        private boolean[] equalBelow;
+
+        @SuppressWarnings("unchecked")
+        Run(List<T> source, List<T> target) {
+            this.source = source;
+            this.target = target;
+            this.sourceArr = (T[]) source.toArray();
+            this.targetArr = (T[]) target.toArray();
+            this.equalizer = leafAligner.indexEqualizer(sourceArr, targetArr);
+            // Substitutions are not memoized across splits, as that would take a table of up to m * n costs
+            // Transpositions are only found within leaves, which the leaf aligner fills with costs of its own
+            this.costs = Costs.of(sourceArr, targetArr, deleteCost, insertCost, substituteCost, null, null, false);
+            int width = targetArr.length + 1;
+            this.forward = new double[width];
+            this.backward = new double[width];
+            this.equal = new boolean[width];
+            this.equalBelow = new boolean[width];
+        }
+
+        /**
+         * Align source range [i0, i1) with target range [j0, j1), appending the edits in order.
+         *
+         * @return the cost of the aligned range.
+         */
+        double align(int i0, int i1, int j0, int j1) {
+            if (i1 - i0 <= 1 || (long) (i1 - i0 + 1) * (j1 - j0 + 1) <= LEAF_CELLS) {
+                return leaf(i0, i1, j0, j1);
+            }
+            int mid = (i0 + i1) >>> 1;
+            forward(i0, mid, j0, j1);
+            backward(mid, i1, j0, j1);
+
+            int split = j0;
+            double best = forward[0] + backward[0];
+            for (int j = j0 + 1; j <= j1; j++) {
+                double cost = forward[j - j0] + backward[j - j0];
+                if (Double.compare(cost, best) < 0) {
+                    best = cost;
+                    split = j;
+                }
+            }
+
+            return align(i0, mid, j0, split) + align(mid, i1, split, j1);
+        }
+
+        /**
+         * Solve a small sub problem with a full matrix whose first row and column hold the costs of the edges along the
+         * top and left borders of the range.
+         */
+        private double leaf(int i0, int i1, int j0, int j1) {
+            Workspace workspace = leafAligner.workspace();
+            Matrix matrix = workspace.lease(i1 - i0, j1 - j0);
+            try {
+                for (int i = i0 + 1; i <= i1; i++) {
+                    matrix.set(i - i0, 0, matrix.cost(i - i0 - 1, 0) + down(i, j0), Operation.DELETE);
+                }
+                for (int j = j0 + 1; j <= j1; j++) {
+                    matrix.set(0, j - j0, matrix.cost(0, j - j0 - 1) + right(i0, j), Operation.INSERT);
+                }
+                leafAligner.fill(
+                        matrix,
+                        Arrays.copyOfRange(sourceArr, i0, i1),
+                        Arrays.copyOfRange(targetArr, j0, j1),
+                        (i, j) -> equalizer.isEqual(i0 + i, j0 + j)
+                );
+                AlignerImpl.backtrack(matrix, script);
+                return matrix.cost(i1 - i0, j1 - j0);
+            } finally {
+                workspace.release(matrix);
+            }
+        }
+
+        /**
+         * Fill {@link #forward} with the costs of reaching each cell of row {@code mid} from cell (i0, j0).
+         */
+        private void forward(int i0, int mid, int j0, int j1) {
+            double[] row = forward;
+            row[0] = 0;
+            for (int j = j0 + 1; j <= j1; j++) {
+                row[j - j0] = row[j - j0 - 1] + right(i0, j);
+            }
+            for (int i = i0 + 1; i <= mid; i++) {
+                double diagonal = row[0];
+                row[0] = row[0] + down(i, j0);
+                for (int j = j0 + 1; j <= j1; j++) {
+                    double above = row[j - j0];
+                    if (equalizer.isEqual(i - 1, j - 1)) {
+                        row[j - j0] = diagonal;
+                    } else {
+                        double cost = diagonal + costs.substitute(i - 1, j - 1);
+                        cost = min(cost, row[j - j0 - 1] + costs.insert(j - 1));
+                        cost = min(cost, above + costs.delete(i - 1));
+                        row[j - j0] = cost;
+                    }
+                    diagonal = above;
+                }
+            }
+        }
+
+        /**
+         * Fill {@link #backward} with the costs of reaching cell (i1, j1) from each cell of row {@code mid}.
+         */
+        private void backward(int mid, int i1, int j0, int j1) {
+            double[] row = backward;
+            fillEqual(equal, i1, j0, j1);
+            row[j1 - j0] = 0;
+            for (int j = j1 - 1; j >= j0; j--) {
+                row[j - j0] = row[j - j0 + 1] + right(i1, j + 1, equal[j + 1 - j0]);
+            }
+            for (int i = i1 - 1; i >= mid; i--) {
+                boolean[] temp = equalBelow;
+                equalBelow = equal;
+                equal = temp;
+                fillEqual(equal, i, j0, j1);
+
+                double diagonal = row[j1 - j0];
+                row[j1 - j0] = row[j1 - j0] + down(i + 1, j1, equalBelow[j1 - j0]);
+                for (int j = j1 - 1; j >= j0; j--) {
+                    double below = row[j - j0];
+                    double cost = diagonal + (equalBelow[j + 1 - j0]
+                            ? 0
+                            : costs.substitute(i, j));
+                    cost = min(cost, below + down(i + 1, j, equalBelow[j - j0]));
+                    cost = min(cost, row[j - j0 + 1] + right(i, j + 1, equal[j + 1 - j0]));
+                    row[j - j0] = cost;
+                    diagonal = below;
+                }
+            }
+        }
+
+        private void fillEqual(boolean[] row, int i, int j0, int j1) {
+            for (int j = j0; j <= j1; j++) {
+                row[j - j0] = i > 0 && j > 0 && equalizer.isEqual(i - 1, j - 1);
+            }
+        }
+
+        /**
+         * The cost of the edge from (i - 1, j) to (i, j), infinite if the cell can only be reached diagonally.
+         */
+        private double down(int i, int j) {
+            return down(i, j, j > 0 && equalizer.isEqual(i - 1, j - 1));
+        }
+
+        private double down(int i, int j, boolean equal) {
+            if (j == 0) {
+                return 1;
+            }
+            return equal ? Double.POSITIVE_INFINITY : costs.delete(i - 1);
+        }
+
+        /**
+         * The cost of the edge from (i, j - 1) to (i, j), infinite if the cell can only be reached diagonally.
+         */
+        private double right(int i, int j) {
+            return right(i, j, i > 0 && equalizer.isEqual(i - 1, j - 1));
+        }
+
+        private double right(int i, int j, boolean equal) {
+            if (i == 0) {
+                return 1;
+            }
+            return equal ? Double.POSITIVE_INFINITY : costs.insert(j - 1);
+        }
+    }
+
+    private static double min(double a, double b) {
+        return Double.compare(b, a) < 0 ? b : a;
+    }
+}
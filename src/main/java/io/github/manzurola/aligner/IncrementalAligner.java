@@ -0,0 +1,48 @@
+package io.github.manzurola.aligner;
+
+import java.util.List;
+
+/**
+ * Aligns a fixed source with a target that grows one token at a time, such as a transcript being recognized against a
+ * reference. Each appended token adds one column to the matrix, computed from the columns before it, so a target of
+ * {@code n} tokens costs {@code O(m * n)} in total rather than a full alignment per token. The current cost is known
+ * after every append, and the edits are traced back only when asked for.
+ * <p>
+ * Created by {@link Aligner.Builder#buildIncremental(List)} with the costs, equalizer and comparator of the builder,
+ * and without a band it aligns exactly as the full matrix aligner of the same builder does. An incremental aligner
+ * holds the state of a single alignment, and is not safe for use by several threads.
+ *
+ * @param <T> the type of elements this aligner supports.
+ */
+public interface IncrementalAligner<T> {
+
+    /**
+     * Append a token to the target, filling the column of the matrix for it.
+     */
+    void append(T token);
+
+    default void appendAll(Iterable<? extends T> tokens) {
+        tokens.forEach(this::append);
+    }
+
+    List<T> source();
+
+    /**
+     * The tokens appended so far.
+     */
+    List<T> target();
+
+    /**
+     * The cost of aligning the source with the target appended so far. With a band, this is infinite once the lengths
+     * of the source and target differ by more than its width.
+     */
+    double cost();
+
+    /**
+     * Trace back the alignment of the source with the target appended so far. The alignment holds a snapshot of the
+     * target and is not affected by later appends.
+     *
+     * @throws IllegalStateException if the cost is infinite, since no alignment stays within the band.
+     */
+    Alignment<T> alignment();
+}
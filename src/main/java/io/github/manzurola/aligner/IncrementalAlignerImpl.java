@@ -0,0 +1,203 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.edit.Operation;
+import io.github.manzurola.aligner.metrics.*;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Fills the matrix column by column with the same recurrence as {@link AlignerImpl}, including its tie breaking, so
+ * the alignment of the target appended so far is that of the full matrix. Tokens are compared through ids when a key
+ * is set, and transposed blocks are detected by {@link Transpositions} over classes assigned as target tokens arrive.
+ * <p>
+ * With a band of width {@code w}, column {@code j} only stores rows {@code j - w} to {@code j + w}, and memory is
+ * {@code O(w * n)} instead of {@code O(m * n)}. Alignments that leave the band are not considered, so the cost may be
+ * higher than that of the full matrix.
+ */
+final class IncrementalAlignerImpl<T> implements IncrementalAligner<T> {
+
+    private final Equalizer<T> equalizer;
+    private final Comparator<T> comparator;
+    private final int maxTranspositionSpan;
+    private final int bandWidth;
+    private final InsertCost<T> insertCost;
+    private final SubstituteCost<T> substituteCost;
+    private final TransposeCost<T> transposeCost;
+
+    private final List<T> source;
+    private final List<T> target = new ArrayList<>();
+    private final double[] deleteCosts;
+    private final Interner<T> interner;
+    private final int[] sourceIds;
+    private final Map<T, Integer> classes;
+    private final Transpositions transpositions;
+    private final Columns grid;
+
+    /**
+     * @param bandWidth the width of the band on either side of the diagonal, or a negative number for no band.
+     */
+    IncrementalAlignerImpl(List<T> source,
+                           int bandWidth,
+                           Equalizer<T> equalizer,
+                           Function<? super T, ?> key,
+                           Comparator<T> comparator,
+                           int maxTranspositionSpan,
+                           DeleteCost<T> deleteCost,
+                           InsertCost<T> insertCost,
+                           SubstituteCost<T> substituteCost,
+                           TransposeCost<T> transposeCost) {
+        this.source = Collections.unmodifiableList(new ArrayList<>(source));
+        this.bandWidth = bandWidth;
+        this.equalizer = Objects.requireNonNull(equalizer);
+        this.comparator = comparator;
+        this.maxTranspositionSpan = maxTranspositionSpan;
+        this.insertCost = Objects.requireNonNull(insertCost);
+        this.substituteCost = Objects.requireNonNull(substituteCost);
+        this.transposeCost = Objects.requireNonNull(transposeCost);
+
+        int m = this.source.size();
+        this.deleteCosts = new double[m];
+        for (int i = 0; i < m; i++) {
+            deleteCosts[i] = deleteCost.getCost(this.source.get(i));
+        }
+        this.interner = key != null ? new Interner<>(key) : null;
+        this.sourceIds = key != null ? new int[m] : null;
+        for (int i = 0; i < m && interner != null; i++) {
+            sourceIds[i] = interner.intern(this.source.get(i));
+        }
+        if (comparator != null) {
+            this.classes = new TreeMap<>(comparator);
+            int[] sourceClasses = new int[m];
+            for (int i = 0; i < m; i++) {
+                sourceClasses[i] = classes.computeIfAbsent(this.source.get(i), t -> classes.size());
+            }
+            this.transpositions = Transpositions.growing(sourceClasses, classes.size());
+        } else {
+            this.classes = null;
+            this.transpositions = null;
+        }
+
+        this.grid = new Columns(m);
+        grid.beginColumn(0, 0, last(0));
+        grid.setOrigin();
+        for (int i = 1; i <= last(0); i++) {
+            grid.set(i, 0, grid.cost(i - 1, 0) + 1, Operation.DELETE);
+        }
+    }
+
+    @Override
+    public final void append(T token) {
+        int j = target.size();
+        target.add(token);
+        int targetId = interner != null ? interner.intern(token) : -1;
+        if (transpositions != null) {
+            transpositions.appendTarget(j, classes.computeIfAbsent(token, t -> classes.size()));
+        }
+        double insCost = insertCost.getCost(token);
+
+        int first = first(j + 1);
+        int last = last(j + 1);
+        grid.beginColumn(j + 1, first, last);
+        for (int i = first; i <= last; i++) {
+            if (i == 0) {
+                grid.set(0, j + 1, grid.cost(0, j) + 1, Operation.INSERT);
+            } else if (interner != null ? sourceIds[i - 1] == targetId : equalizer.isEqual(source.get(i - 1), token)) {
+                grid.set(i, j + 1, grid.cost(i - 1, j), Operation.EQUAL);
+            } else {
+                fillCell(i - 1, j, insCost);
+            }
+        }
+    }
+
+    /**
+     * Fill cell (i + 1, j + 1) for source token i and target token j, which are not equal.
+     */
+    private void fillCell(int i, int j, double insCost) {
+        double delCost = grid.cost(i, j + 1) + deleteCosts[i];
+        double insertedCost = grid.cost(i + 1, j) + insCost;
+        double subCost = grid.cost(i, j) + substituteCost.getCost(source.get(i), target.get(j));
+
+        double transCost = Double.MAX_VALUE;
+        int k = 1;
+        if (transpositions != null) {
+            transpositions.begin(i, j);
+            while (k < maxTranspositionSpan &&
+                   i - k >= 0 &&
+                   j - k >= 0 &&
+                   grid.cost(i - k + 1, j - k + 1) != grid.cost(i - k, j - k)) {
+
+                if (transpositions.extend(i - k, j - k)) {
+                    transCost = grid.cost(i - k, j - k) + transposeCost.getCost(
+                            block(source, i - k, i + 1),
+                            block(target, j - k, j + 1));
+                    break;
+                }
+
+                k += 1;
+            }
+        }
+        double minCost = transCost;
+        Operation minOp = Operation.TRANSPOSE;
+        if (Double.compare(subCost, minCost) < 0) {
+            minCost = subCost;
+            minOp = Operation.SUBSTITUTE;
+        }
+        if (Double.compare(insertedCost, minCost) < 0) {
+            minCost = insertedCost;
+            minOp = Operation.INSERT;
+        }
+        if (Double.compare(delCost, minCost) < 0) {
+            minCost = delCost;
+            minOp = Operation.DELETE;
+        }
+        if (minOp == Operation.TRANSPOSE) {
+            grid.setTranspose(i + 1, j + 1, minCost, k + 1);
+        } else {
+            grid.set(i + 1, j + 1, minCost, minOp);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T[] block(List<T> tokens, int from, int to) {
+        T[] block = (T[]) tokens.subList(from, to).toArray();
+        if (block.length > 2) {
+            Arrays.sort(block, comparator);
+        }
+        return block;
+    }
+
+    private int first(int j) {
+        return bandWidth < 0 ? 0 : Math.max(0, j - bandWidth);
+    }
+
+    private int last(int j) {
+        return bandWidth < 0 ? source.size() : (int) Math.min(source.size(), (long) j + bandWidth);
+    }
+
+    @Override
+    public final List<T> source() {
+        return source;
+    }
+
+    @Override
+    public final List<T> target() {
+        return Collections.unmodifiableList(target);
+    }
+
+    @Override
+    public final double cost() {
+        return grid.cost(source.size(), target.size());
+    }
+
+    @Override
+    public final Alignment<T> alignment() {
+        double cost = cost();
+        if (cost == Double.POSITIVE_INFINITY) {
+            throw new IllegalStateException("no alignment within the band");
+        }
+        Script script = new Script();
+        AlignerImpl.backtrack(grid, script);
+        return Alignment.of(source, Collections.unmodifiableList(new ArrayList<>(target)), script, cost);
+    }
+}
@@ -0,0 +1,9 @@
+package io.github.manzurola.aligner;
+
+/**
+ * Tests whether source token {@code i} equals target token {@code j}, given their indices in the lists being aligned.
+ */
+@FunctionalInterface
+interface IndexEqualizer {
+    boolean isEqual(int i, int j);
+}
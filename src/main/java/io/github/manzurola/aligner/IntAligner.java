@@ -0,0 +1,91 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.metrics.IntDeleteCost;
+import io.github.manzurola.aligner.metrics.IntInsertCost;
+import io.github.manzurola.aligner.metrics.IntSubstituteCost;
+import io.github.manzurola.aligner.metrics.IntTransposeCost;
+
+/**
+ * An aligner for lists of int tokens, such as the ids of an interned vocabulary. Tokens are compared with
+ * {@code ==} and costs are functions of ints, so no token is boxed while aligning.
+ * <p>
+ * The edits are the same as those of an {@link Aligner} over the equivalent lists of {@link Integer}, with the natural
+ * order as comparator when transpositions are enabled. Their segments are read only views of the aligned arrays, which
+ * only box a token when it is read. To index the arrays directly, use {@link
+ * io.github.manzurola.aligner.edit.Segment#position()} and {@link io.github.manzurola.aligner.edit.Segment#end()}.
+ */
+public interface IntAligner {
+
+    Alignment<Integer> align(int[] source, int[] target);
+
+    /**
+     * Compute the cost of aligning source and target without building the edits of the alignment.
+     *
+     * @return the score of the alignment, equal in cost, distance and ratio to the result of {@link #align(int[],
+     * int[])}.
+     */
+    default Score score(int[] source, int[] target) {
+        return Score.of(align(source, target));
+    }
+
+    /**
+     * Get a new levenshtein int aligner.
+     */
+    static IntAligner levenshtein() {
+        return IntAligner.builder()
+                .build();
+    }
+
+    /**
+     * Get a new damerau-levenshtein int aligner, transposing blocks of tokens that are equal once sorted.
+     */
+    static IntAligner damerauLevenshtein() {
+        return IntAligner.builder()
+                .setTranspositions(true)
+                .build();
+    }
+
+    /**
+     * Get a new builder to create a custom int aligner. The builder is instantiated with the same default costs as
+     * {@link Aligner#builder()}, and transpositions and prefix trimming disabled.
+     */
+    static IntAligner.Builder builder() {
+        return new IntBuilderImpl()
+                .setDeleteCost(DefaultMetrics.intDeleteCost())
+                .setInsertCost(DefaultMetrics.intInsertCost())
+                .setSubstituteCost(DefaultMetrics.intSubstituteCost())
+                .setTransposeCost(DefaultMetrics.intTransposeCost())
+                .setTranspositions(false)
+                .setMaxTranspositionSpan(Integer.MAX_VALUE)
+                .setTrimCommonPrefix(false);
+    }
+
+    interface Builder {
+        Builder setDeleteCost(IntDeleteCost deleteCost);
+
+        Builder setInsertCost(IntInsertCost insertCost);
+
+        Builder setSubstituteCost(IntSubstituteCost substituteCost);
+
+        Builder setTransposeCost(IntTransposeCost transposeCost);
+
+        /**
+         * Whether blocks of tokens that are equal once sorted may be transposed, as with a natural order comparator.
+         */
+        Builder setTranspositions(boolean transpositions);
+
+        /**
+         * Limit transpositions to blocks of at most {@code maxTranspositionSpan} tokens, see {@link
+         * Aligner.Builder#setMaxTranspositionSpan(int)}.
+         */
+        Builder setMaxTranspositionSpan(int maxTranspositionSpan);
+
+        /**
+         * Align the common prefix of source and target as equal edits without computing the matrix for it, see {@link
+         * Aligner.Builder#setTrimCommonPrefix(boolean)}. The common suffix is always trimmed.
+         */
+        Builder setTrimCommonPrefix(boolean trimPrefix);
+
+        IntAligner build();
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.edit.Operation;
+import io.github.manzurola.aligner.metrics.IntDeleteCost;
+import io.github.manzurola.aligner.metrics.IntInsertCost;
+import io.github.manzurola.aligner.metrics.IntSubstituteCost;
+import io.github.manzurola.aligner.metrics.IntTransposeCost;
+
+import java.util.*;
+
+/**
+ * The int token counterpart of {@link AlignerImpl}, filling the same matrix with the same recurrence. Tokens are equal
+ * when they are {@code ==}, and blocks are transposed when they are equal once sorted in natural order.
+ * <p>
+ * With the default unit costs and no transpositions, the matrix is computed with {@link BitParallel} instead, like
+ * {@link BitParallelAligner} does. Either way only the middle between the common prefix and suffix is computed, see
+ * {@link Trim}.
+ */
+final class IntAlignerImpl implements IntAligner {
+
+    private final boolean transpositions;
+    private final int maxTranspositionSpan;
+    private final boolean trimPrefix;
+    private final boolean bitParallel;
+    private final IntDeleteCost deleteCost;
+    private final IntInsertCost insertCost;
+    private final IntSubstituteCost substituteCost;
+    private final IntTransposeCost transposeCost;
+
+    public IntAlignerImpl(boolean transpositions,
+                          int maxTranspositionSpan,
+                          boolean trimPrefix,
+                          IntDeleteCost deleteCost,
+                          IntInsertCost insertCost,
+                          IntSubstituteCost substituteCost,
+                          IntTransposeCost transposeCost) {
+        this.transpositions = transpositions;
+        this.maxTranspositionSpan = maxTranspositionSpan;
+        this.trimPrefix = trimPrefix;
+        this.deleteCost = Objects.requireNonNull(deleteCost);
+        this.insertCost = Objects.requireNonNull(insertCost);
+        this.substituteCost = Objects.requireNonNull(substituteCost);
+        this.transposeCost = Objects.requireNonNull(transposeCost);
+        this.bitParallel = !transpositions && DefaultMetrics.isIntUnitCost(deleteCost, insertCost, substituteCost);
+    }
+
+    @Override
+    public final Alignment<Integer> align(int[] source, int[] target) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
+
+        List<Integer> sourceList = new IntArrayView(source);
+        List<Integer> targetList = new IntArrayView(target);
+        Trim trim = trim(source, target);
+        int[] sourceMiddle = trim.source(source);
+        int[] targetMiddle = trim.target(target);
+        Script script = new Script();
+        trim.addPrefix(script);
+
+        if (bitParallel) {
+            BitParallel matrix = BitParallel.fill(
+                    sourceMiddle.length,
+                    targetMiddle.length,
+                    new MatchVectors(sourceMiddle, targetMiddle)
+            );
+            script.beginBacktrack();
+            matrix.backtrack((i, j) -> sourceMiddle[i] == targetMiddle[j], (op, i, j) -> script.add(op));
+            script.endBacktrack();
+            trim.addSuffix(script);
+            return Alignment.of(sourceList, targetList, script, matrix.distance());
+        }
+
+        Matrix matrix = new Matrix(sourceMiddle.length, targetMiddle.length);
+        matrix.fillEdges();
+        Transpositions detector = transpositions ? Transpositions.of(sourceMiddle, targetMiddle) : null;
+        IndexEqualizer equal = (i, j) -> sourceMiddle[i] == targetMiddle[j];
+        CellCosts costs = new IntCosts(sourceMiddle, targetMiddle);
+        for (int i = 0; i < sourceMiddle.length; i++) {
+            for (int j = 0; j < targetMiddle.length; j++) {
+                AlignerImpl.fillCell(matrix, equal, costs, detector, maxTranspositionSpan, i, j);
+            }
+        }
+        AlignerImpl.backtrack(matrix, script);
+        trim.addSuffix(script);
+        return Alignment.of(sourceList, targetList, script, matrix.cost(sourceMiddle.length, targetMiddle.length));
+    }
+
+    /**
+     * Keeps a single column of words for unit costs, or two rows of costs otherwise. With transpositions the cost is
+     * that of the full alignment.
+     */
+    @Override
+    public final Score score(int[] source, int[] target) {
+        Objects.requireNonNull(source);
+        Objects.requireNonNull(target);
+
+        if (transpositions) {
+            return IntAligner.super.score(source, target);
+        }
+        Trim trim = trim(source, target);
+        int[] sourceMiddle = trim.source(source);
+        int[] targetMiddle = trim.target(target);
+        if (bitParallel) {
+            // Unit cost levenshtein is symmetric, so the shorter array can always be the one packed into words
+            boolean swapped = targetMiddle.length < sourceMiddle.length;
+            int[] packed = swapped ? targetMiddle : sourceMiddle;
+            int[] other = swapped ? sourceMiddle : targetMiddle;
+            int distance = BitParallel.distance(packed.length, other.length, new MatchVectors(packed, other));
+            return Score.of(distance, source.length, target.length);
+        }
+
+        double[] prev = new double[targetMiddle.length + 1];
+        double[] curr = new double[targetMiddle.length + 1];
+        for (int j = 1; j < targetMiddle.length + 1; j++) {
+            prev[j] = prev[j - 1] + 1;
+        }
+        for (int i = 0; i < sourceMiddle.length; i++) {
+            curr[0] = prev[0] + 1;
+            for (int j = 0; j < targetMiddle.length; j++) {
+                if (sourceMiddle[i] == targetMiddle[j]) {
+                    curr[j + 1] = prev[j];
+                } else {
+                    double minCost = prev[j] + substituteCost.getCost(sourceMiddle[i], targetMiddle[j]);
+                    minCost = min(minCost, curr[j] + insertCost.getCost(targetMiddle[j]));
+                    minCost = min(minCost, prev[j + 1] + deleteCost.getCost(sourceMiddle[i]));
+                    curr[j + 1] = minCost;
+                }
+            }
+            double[] temp = prev;
+            prev = curr;
+            curr = temp;
+        }
+        return Score.of(prev[targetMiddle.length], source.length, target.length);
+    }
+
+    /**
+     * Find the common suffix, and the common prefix if enabled, which are aligned without a matrix.
+     */
+    private Trim trim(int[] source, int[] target) {
+        return Trim.of((i, j) -> source[i] == target[j], source.length, target.length, trimPrefix);
+    }
+
+    private static double min(double a, double b) {
+        return Double.compare(b, a) < 0 ? b : a;
+    }
+
+    /**
+     * The costs of the operations on int tokens, by index.
+     */
+    private final class IntCosts implements CellCosts {
+
+        private final int[] source;
+        private final int[] target;
+
+        IntCosts(int[] source, int[] target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        public double delete(int i) {
+            return deleteCost.getCost(source[i]);
+        }
+
+        @Override
+        public double insert(int j) {
+            return insertCost.getCost(target[j]);
+        }
+
+        @Override
+        public double substitute(int i, int j) {
+            return substituteCost.getCost(source[i], target[j]);
+        }
+
+        @Override
+        public double transpose(int i0, int i1, int j0, int j1) {
+            return transposeCost.getCost(block(source, i0, i1), block(target, j0, j1));
+        }
+    }
+
+    /**
+     * Copy a transposed block of tokens for the transpose cost. Blocks longer than a pair are passed sorted.
+     */
+    private static int[] block(int[] tokens, int from, int to) {
+        int[] block = Arrays.copyOfRange(tokens, from, to);
+        if (block.length > 2) {
+            Arrays.sort(block);
+        }
+        return block;
+    }
+}
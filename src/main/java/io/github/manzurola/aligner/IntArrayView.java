@@ -0,0 +1,27 @@
+package io.github.manzurola.aligner;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A read only list view of an int array. Values are only boxed when read, so edits that reference the view through
+ * {@link java.util.List#subList(int, int)} hold no boxed tokens until they are inspected.
+ */
+final class IntArrayView extends AbstractList<Integer> implements RandomAccess {
+
+    private final int[] values;
+
+    IntArrayView(int[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public Integer get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+}
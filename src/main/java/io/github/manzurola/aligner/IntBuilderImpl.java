@@ -0,0 +1,76 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.metrics.IntDeleteCost;
+import io.github.manzurola.aligner.metrics.IntInsertCost;
+import io.github.manzurola.aligner.metrics.IntSubstituteCost;
+import io.github.manzurola.aligner.metrics.IntTransposeCost;
+
+final class IntBuilderImpl implements IntAligner.Builder {
+
+    private IntDeleteCost deleteCost;
+    private IntInsertCost insertCost;
+    private IntSubstituteCost substituteCost;
+    private IntTransposeCost transposeCost;
+
+    private boolean transpositions;
+    private int maxTranspositionSpan;
+    private boolean trimPrefix;
+
+    @Override
+    public final IntAligner.Builder setDeleteCost(IntDeleteCost deleteCost) {
+        this.deleteCost = deleteCost;
+        return this;
+    }
+
+    @Override
+    public final IntAligner.Builder setInsertCost(IntInsertCost insertCost) {
+        this.insertCost = insertCost;
+        return this;
+    }
+
+    @Override
+    public final IntAligner.Builder setSubstituteCost(IntSubstituteCost substituteCost) {
+        this.substituteCost = substituteCost;
+        return this;
+    }
+
+    @Override
+    public final IntAligner.Builder setTransposeCost(IntTransposeCost transposeCost) {
+        this.transposeCost = transposeCost;
+        return this;
+    }
+
+    @Override
+    public final IntAligner.Builder setTranspositions(boolean transpositions) {
+        this.transpositions = transpositions;
+        return this;
+    }
+
+    @Override
+    public final IntAligner.Builder setMaxTranspositionSpan(int maxTranspositionSpan) {
+        if (maxTranspositionSpan < 2) {
+            throw new IllegalArgumentException("transpositions span at least 2 tokens");
+        }
+        this.maxTranspositionSpan = maxTranspositionSpan;
+        return this;
+    }
+
+    @Override
+    public final IntAligner.Builder setTrimCommonPrefix(boolean trimPrefix) {
+        this.trimPrefix = trimPrefix;
+        return this;
+    }
+
+    @Override
+    public final IntAligner build() {
+        return new IntAlignerImpl(
+                transpositions,
+                maxTranspositionSpan,
+                trimPrefix,
+                deleteCost,
+                insertCost,
+                substituteCost,
+                transposeCost
+        );
+    }
+}
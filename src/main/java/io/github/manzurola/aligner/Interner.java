@@ -0,0 +1,32 @@
+package io.github.manzurola.aligner;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Maps tokens to int ids by key, so that tokens with equal keys get the same id. An interner is used for a single
+ * alignment: interning the source and then the target assigns ids from the same table, after which tokens can be
+ * compared as ints.
+ */
+final class Interner<T> {
+
+    private final Function<? super T, ?> key;
+    private final Map<Object, Integer> ids = new HashMap<>();
+
+    Interner(Function<? super T, ?> key) {
+        this.key = key;
+    }
+
+    int[] intern(T[] tokens) {
+        int[] result = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            result[i] = intern(tokens[i]);
+        }
+        return result;
+    }
+
+    int intern(T token) {
+        return ids.computeIfAbsent(key.apply(token), k -> ids.size());
+    }
+}
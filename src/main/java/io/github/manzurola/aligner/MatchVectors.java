@@ -0,0 +1,62 @@
+package io.github.manzurola.aligner;
+
+import java.util.function.IntFunction;
+
+/**
+ * The {@link BitParallel} match vectors of int tokens, kept in an open addressing table keyed by token so that no
+ * token is boxed.
+ */
+final class MatchVectors implements IntFunction<long[]> {
+
+    private final int[] other;
+    private final int[] keys;
+    private final long[][] vectors;
+    private final long[] none;
+    private final int mask;
+
+    /**
+     * Index the tokens of {@code packed} so the match vector of each token of {@code other} can be looked up.
+     */
+    MatchVectors(int[] packed, int[] other) {
+        this.other = other;
+        int blocks = BitParallel.blocks(packed.length);
+        int capacity = Integer.highestOneBit(Math.max(packed.length, 1) * 2 + 1);
+        this.keys = new int[capacity];
+        this.vectors = new long[capacity][];
+        this.none = new long[blocks];
+        this.mask = capacity - 1;
+        for (int i = 0; i < packed.length; i++) {
+            int slot = slot(packed[i]);
+            if (vectors[slot] == null) {
+                keys[slot] = packed[i];
+                vectors[slot] = new long[blocks];
+            }
+            vectors[slot][i >>> 6] |= 1L << i;
+        }
+    }
+
+    /**
+     * The match vector of token {@code j} of {@code other}.
+     */
+    @Override
+    public long[] apply(int j) {
+        long[] vector = vectors[slot(other[j])];
+        return vector != null ? vector : none;
+    }
+
+    /**
+     * The slot holding {@code key}, or the empty slot where it belongs.
+     */
+    private int slot(int key) {
+        int slot = mix(key) & mask;
+        while (vectors[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.edit.Operation;
+
+/**
+ * A flat, struct-of-arrays dynamic programming matrix of {@code (rows + 1) x (cols + 1)} cells. Each cell holds a cost,
+ * the operation that produced it and, for transpositions, the length of the transposed block.
+ * <p>
+ * Cells are stored row-major in primitive arrays so filling the matrix allocates nothing per cell.
+ */
+final class Matrix implements Grid {
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final byte NONE = -1;
+
+    private final int rows;
+    private final int columns;
+    private final int width;
+    private final double[] costs;
+    private final byte[] ops;
+    private final int[] lengths;
+
+    /**
+     * Create a new matrix for aligning a source of length {@code m} and a target of length {@code n}.
+     */
+    Matrix(int m, int n) {
+        this(m, n, new double[(m + 1) * (n + 1)], new byte[(m + 1) * (n + 1)], new int[(m + 1) * (n + 1)]);
+    }
+
+    /**
+     * Create a new matrix over existing storage of at least {@code (m + 1) * (n + 1)} cells, such as that of a {@link
+     * Workspace}. Only the top left cell is reset; every other cell must be set before it is read.
+     */
+    Matrix(int m, int n, double[] costs, byte[] ops, int[] lengths) {
+        this.rows = m;
+        this.columns = n;
+        this.width = n + 1;
+        this.costs = costs;
+        this.ops = ops;
+        this.lengths = lengths;
+        costs[0] = 0;
+        ops[0] = NONE;
+    }
+
+    /**
+     * Fill the first row and column with unit cost insert and delete edges respectively.
+     */
+    void fillEdges() {
+        for (int i = 1; i < rows + 1; i++) {
+            set(i, 0, cost(i - 1, 0) + 1, Operation.DELETE);
+        }
+        for (int j = 1; j < columns + 1; j++) {
+            set(0, j, cost(0, j - 1) + 1, Operation.INSERT);
+        }
+    }
+
+    @Override
+    public int rows() {
+        return rows;
+    }
+
+    @Override
+    public int columns() {
+        return columns;
+    }
+
+    @Override
+    public double cost(int i, int j) {
+        return costs[i * width + j];
+    }
+
+    @Override
+    public Operation op(int i, int j) {
+        byte op = ops[i * width + j];
+        return op == NONE ? null : OPERATIONS[op];
+    }
+
+    @Override
+    public int length(int i, int j) {
+        return lengths[i * width + j];
+    }
+
+    @Override
+    public void set(int i, int j, double cost, Operation op) {
+        int index = i * width + j;
+        costs[index] = cost;
+        ops[index] = (byte) op.ordinal();
+    }
+
+    @Override
+    public void setTranspose(int i, int j, double cost, int length) {
+        int index = i * width + j;
+        costs[index] = cost;
+        ops[index] = (byte) Operation.TRANSPOSE.ordinal();
+        lengths[index] = length;
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.manzurola.aligner;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A source and a target list to be aligned, as passed to {@link Aligner#alignAll(List)}.
+ */
+public final class Pair<T> {
+
+    private final List<T> source;
+    private final List<T> target;
+
+    private Pair(List<T> source, List<T> target) {
+        this.source = Objects.requireNonNull(source);
+        this.target = Objects.requireNonNull(target);
+    }
+
+    public static <T> Pair<T> of(List<T> source, List<T> target) {
+        return new Pair<>(source, target);
+    }
+
+    public final List<T> source() {
+        return source;
+    }
+
+    public final List<T> target() {
+        return target;
+    }
+
+    /**
+     * The number of cells of the matrix that aligns this pair, used to estimate its work.
+     */
+    final long cells() {
+        return (long) (source.size() + 1) * (target.size() + 1);
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Pair<?> pair = (Pair<?>) o;
+        return source.equals(pair.source) &&
+               target.equals(pair.target);
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(source, target);
+    }
+
+    @Override
+    public final String toString() {
+        return "Pair{" +
+               "source=" + source +
+               ", target=" + target +
+               '}';
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.manzurola.aligner;
+
+/**
+ * A ring of matrix rows, used to compute alignment costs while only keeping the most recent rows in memory. Row
+ * {@code i} of the matrix is stored at slot {@code i % capacity}, so with a capacity of {@code c} rows
+ * {@code i - c + 1} to {@code i} are available.
+ * <p>
+ * The capacity starts at two rows, enough for Levenshtein, and grows on demand to keep the diagonal history that
+ * transpositions look back on.
+ */
+final class Rows {
+
+    private final int width;
+    private double[][] rows;
+    private int last;
+
+    Rows(int n) {
+        this.width = n + 1;
+        this.rows = new double[2][width];
+    }
+
+    /**
+     * Get row {@code i}, which must be at most one past the last requested row and still within capacity.
+     */
+    double[] row(int i) {
+        if (i > last) {
+            last = i;
+        }
+        return rows[i & (rows.length - 1)];
+    }
+
+    /**
+     * Make sure the ring holds at least {@code capacity} rows, keeping the rows that are currently stored.
+     */
+    void ensureCapacity(int capacity) {
+        int current = rows.length;
+        if (capacity <= current) {
+            return;
+        }
+        int size = current;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        double[][] grown = new double[size][];
+        for (int i = Math.max(0, last - current + 1); i <= last; i++) {
+            grown[i & (size - 1)] = rows[i & (current - 1)];
+        }
+        for (int i = 0; i < size; i++) {
+            if (grown[i] == null) {
+                grown[i] = new double[width];
+            }
+        }
+        rows = grown;
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.manzurola.aligner;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The cost of aligning two lists, without the edits that make up the alignment. Scores are computed by {@link
+ * Aligner#score(List, List)} and carry the same cost, distance and ratio as the full {@link Alignment} would.
+ */
+public final class Score {
+
+    private final double cost;
+    private final int sourceSize;
+    private final int targetSize;
+
+    private Score(double cost, int sourceSize, int targetSize) {
+        this.cost = cost;
+        this.sourceSize = sourceSize;
+        this.targetSize = targetSize;
+    }
+
+    public static Score of(double cost, int sourceSize, int targetSize) {
+        return new Score(cost, sourceSize, targetSize);
+    }
+
+    public static Score of(Alignment<?> alignment) {
+        return new Score(alignment.cost(), alignment.sourceSize(), alignment.targetSize());
+    }
+
+    /**
+     * The total cost of operations
+     */
+    public final double cost() {
+        return cost;
+    }
+
+    /**
+     * The normalized cost [0, 1]
+     */
+    public final double distance() {
+        return cost() / Math.max(sourceSize, targetSize);
+    }
+
+    /**
+     * The inverse of {@link #distance()}
+     */
+    public final double similarity() {
+        return 1 - distance();
+    }
+
+    /**
+     * The normalized cost ratio, defined as (maxLength - cost) / maxLength
+     */
+    public final double ratio() {
+        int lensum = Math.max(sourceSize, targetSize);
+        return (lensum - cost()) / lensum;
+    }
+
+    public final int sourceSize() {
+        return sourceSize;
+    }
+
+    public final int targetSize() {
+        return targetSize;
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Score score = (Score) o;
+        return Double.compare(score.cost, cost) == 0 &&
+               sourceSize == score.sourceSize &&
+               targetSize == score.targetSize;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(cost, sourceSize, targetSize);
+    }
+
+    @Override
+    public final String toString() {
+        return "Score{" +
+               "cost=" + cost +
+               ", sourceSize=" + sourceSize +
+               ", targetSize=" + targetSize +
+               '}';
+    }
+}
@@ -0,0 +1,247 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.edit.Operation;
+
+import java.util.Arrays;
+
+/**
+ * The operations of an alignment as runs of identical edits, each run being an operation code, the number of tokens
+ * each of its edits spans and the number of edits. The edits of a script cover the source and the target from their
+ * first token to their last one, so their positions follow from the edits before them and are not stored.
+ * <p>
+ * Adjacent runs of the same operation and span are always merged, so two scripts hold the same runs if and only if they
+ * describe the same sequence of operations.
+ */
+final class Script {
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private byte[] ops;
+    private int[] spans;
+    private int[] counts;
+    private int runs;
+    private int size;
+    private int sourceLength;
+    private int targetLength;
+    private int backtrackStart;
+
+    Script() {
+        this(8);
+    }
+
+    private Script(int capacity) {
+        this.ops = new byte[capacity];
+        this.spans = new int[capacity];
+        this.counts = new int[capacity];
+    }
+
+    /**
+     * Append an edit of operation {@code op}, spanning a single token on each side it covers.
+     */
+    void add(Operation op) {
+        add(op, 1, 1);
+    }
+
+    /**
+     * Append {@code count} edits of operation {@code op}, each spanning {@code span} tokens on each side it covers.
+     */
+    void add(Operation op, int span, int count) {
+        if (count == 0) {
+            return;
+        }
+        int last = runs - 1;
+        if (runs > backtrackStart && ops[last] == op.ordinal() && spans[last] == span) {
+            counts[last] += count;
+        } else {
+            if (runs == ops.length) {
+                int capacity = Math.max(8, runs << 1);
+                ops = Arrays.copyOf(ops, capacity);
+                spans = Arrays.copyOf(spans, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+            ops[runs] = (byte) op.ordinal();
+            spans[runs] = span;
+            counts[runs] = count;
+            runs++;
+        }
+        size += count;
+        sourceLength += sourceSpan(op, span) * count;
+        targetLength += targetSpan(op, span) * count;
+    }
+
+    /**
+     * Append the edits of {@code alignment}, which must cover its source and target in order.
+     *
+     * @throws IllegalArgumentException if an edit other than an insert or a delete has source and target segments of
+     *                                  different sizes, such as a merged edit, which a script cannot hold.
+     */
+    void addAll(Alignment<?> alignment) {
+        Alignment.Cursor<?> cursor = alignment.cursor();
+        while (cursor.next()) {
+            Operation op = cursor.operation();
+            int span = op == Operation.INSERT ? cursor.targetSize() : cursor.sourceSize();
+            if (cursor.sourceSize() != sourceSpan(op, span) || cursor.targetSize() != targetSpan(op, span)) {
+                throw new IllegalArgumentException(
+                        op + " edit of " + cursor.sourceSize() + " source and " + cursor.targetSize() +
+                        " target tokens cannot be held by a script");
+            }
+            add(op, span, 1);
+        }
+    }
+
+    /**
+     * Append the edits of {@code script}.
+     */
+    void addAll(Script script) {
+        for (int r = 0; r < script.runs; r++) {
+            add(script.op(r), script.spans[r], script.counts[r]);
+        }
+    }
+
+    /**
+     * Start appending edits in reverse order, as they are backtracked from the bottom right cell of a matrix.
+     */
+    void beginBacktrack() {
+        backtrackStart = runs;
+    }
+
+    /**
+     * Put the edits appended since {@link #beginBacktrack()} in order.
+     */
+    void endBacktrack() {
+        int start = backtrackStart;
+        for (int low = start, high = runs - 1; low < high; low++, high--) {
+            swap(low, high);
+        }
+        backtrackStart = 0;
+        if (start > 0 && start < runs && ops[start - 1] == ops[start] && spans[start - 1] == spans[start]) {
+            counts[start - 1] += counts[start];
+            System.arraycopy(ops, start + 1, ops, start, runs - start - 1);
+            System.arraycopy(spans, start + 1, spans, start, runs - start - 1);
+            System.arraycopy(counts, start + 1, counts, start, runs - start - 1);
+            runs--;
+        }
+    }
+
+    private void swap(int a, int b) {
+        byte op = ops[a];
+        ops[a] = ops[b];
+        ops[b] = op;
+        int span = spans[a];
+        spans[a] = spans[b];
+        spans[b] = span;
+        int count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+    }
+
+    /**
+     * The script of the inverse alignment, with inserts and deletes exchanged.
+     */
+    Script invert() {
+        Script inverted = new Script(Math.max(runs, 1));
+        for (int r = 0; r < runs; r++) {
+            Operation op = op(r);
+            if (op == Operation.INSERT) {
+                op = Operation.DELETE;
+            } else if (op == Operation.DELETE) {
+                op = Operation.INSERT;
+            }
+            inverted.ops[r] = (byte) op.ordinal();
+        }
+        System.arraycopy(spans, 0, inverted.spans, 0, runs);
+        System.arraycopy(counts, 0, inverted.counts, 0, runs);
+        inverted.runs = runs;
+        inverted.size = size;
+        inverted.sourceLength = targetLength;
+        inverted.targetLength = sourceLength;
+        return inverted;
+    }
+
+    /**
+     * A copy without the spare capacity, for an alignment to keep.
+     */
+    Script trim() {
+        if (runs == ops.length) {
+            return this;
+        }
+        Script trimmed = new Script(0);
+        trimmed.ops = Arrays.copyOf(ops, runs);
+        trimmed.spans = Arrays.copyOf(spans, runs);
+        trimmed.counts = Arrays.copyOf(counts, runs);
+        trimmed.runs = runs;
+        trimmed.size = size;
+        trimmed.sourceLength = sourceLength;
+        trimmed.targetLength = targetLength;
+        return trimmed;
+    }
+
+    int runs() {
+        return runs;
+    }
+
+    Operation op(int run) {
+        return OPERATIONS[ops[run]];
+    }
+
+    int count(int run) {
+        return counts[run];
+    }
+
+    /**
+     * The number of source tokens of each edit of a run.
+     */
+    int sourceSpan(int run) {
+        return sourceSpan(op(run), spans[run]);
+    }
+
+    /**
+     * The number of target tokens of each edit of a run.
+     */
+    int targetSpan(int run) {
+        return targetSpan(op(run), spans[run]);
+    }
+
+    private static int sourceSpan(Operation op, int span) {
+        return op == Operation.INSERT ? 0 : span;
+    }
+
+    private static int targetSpan(Operation op, int span) {
+        return op == Operation.DELETE ? 0 : span;
+    }
+
+    /**
+     * The number of edits.
+     */
+    int size() {
+        return size;
+    }
+
+    int sourceLength() {
+        return sourceLength;
+    }
+
+    int targetLength() {
+        return targetLength;
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Script script = (Script) o;
+        return runs == script.runs &&
+               Arrays.equals(ops, 0, runs, script.ops, 0, runs) &&
+               Arrays.equals(spans, 0, runs, script.spans, 0, runs) &&
+               Arrays.equals(counts, 0, runs, script.counts, 0, runs);
+    }
+
+    @Override
+    public final int hashCode() {
+        int result = 1;
+        for (int r = 0; r < runs; r++) {
+            result = 31 * (31 * (31 * result + ops[r]) + spans[r]) + counts[r];
+        }
+        return result;
+    }
+}
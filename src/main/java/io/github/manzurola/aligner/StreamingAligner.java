@@ -0,0 +1,190 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.edit.Edit;
+import io.github.manzurola.aligner.edit.Operation;
+import io.github.manzurola.aligner.edit.Segment;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Aligns two token streams that are too long to hold in memory, in windows of at most {@code window} tokens of each.
+ * The tokens buffered from both streams are aligned, and a prefix of the edits is committed: those up to the last equal
+ * edit that ends within the first half of the window, or the edits within the first half if none of them is equal.
+ * The committed tokens are dropped, both buffers are filled up again, and the rest is aligned anew, until both streams
+ * are exhausted and the last window is committed in full.
+ * <p>
+ * Ending a commit on an equal edit lets the next window start where both streams agree, and the second half of each
+ * window gives the alignment room to look ahead before anything in the first is final. An edit whose best alignment
+ * would need to see further than that may still be committed differently from a full alignment, so the result is a
+ * heuristic: optimal within each window, but not necessarily as a whole. Memory is bounded by the window, and the
+ * matrix of each window by its square.
+ * <p>
+ * Committed edits are passed on as soon as a window is done, with their positions in the whole streams and copies of
+ * their tokens. A streaming aligner is stateless and safe to share if its aligner is.
+ *
+ * @param <T> the type of elements this aligner supports.
+ */
+public final class StreamingAligner<T> {
+
+    private final Aligner<T> aligner;
+    private final int window;
+
+    private StreamingAligner(Aligner<T> aligner, int window) {
+        this.aligner = aligner;
+        this.window = window;
+    }
+
+    /**
+     * Get a streaming aligner that aligns windows of up to {@code window} tokens of each stream with {@code aligner}.
+     *
+     * @throws IllegalArgumentException if {@code window} is less than 2.
+     */
+    public static <T> StreamingAligner<T> of(Aligner<T> aligner, int window) {
+        Objects.requireNonNull(aligner);
+        if (window < 2) {
+            throw new IllegalArgumentException("window must be at least 2 tokens");
+        }
+        return new StreamingAligner<>(aligner, window);
+    }
+
+    /**
+     * Align the source and target streams, passing each edit to {@code consumer} in order as soon as it is committed.
+     *
+     * @return the total cost, the sum of the costs of the committed prefixes of every window.
+     */
+    public final double align(Iterator<? extends T> source,
+                              Iterator<? extends T> target,
+                              Consumer<? super Edit<T>> consumer) {
+        Run run = new Run(source, target);
+        while (run.commit(consumer)) {
+        }
+        return run.cost;
+    }
+
+    /**
+     * Align the source and target streams as {@link #align(Iterator, Iterator, Consumer)} does.
+     */
+    public final double align(Stream<? extends T> source,
+                              Stream<? extends T> target,
+                              Consumer<? super Edit<T>> consumer) {
+        return align(source.iterator(), target.iterator(), consumer);
+    }
+
+    /**
+     * Align the source and target streams lazily: each window is aligned when the edits of the previous one have been
+     * consumed.
+     */
+    public final Stream<Edit<T>> stream(Iterator<? extends T> source, Iterator<? extends T> target) {
+        Run run = new Run(source, target);
+        Iterator<Edit<T>> edits = new Iterator<Edit<T>>() {
+            private final Deque<Edit<T>> pending = new ArrayDeque<>();
+
+            @Override
+            public boolean hasNext() {
+                while (pending.isEmpty() && run.commit(pending::add)) {
+                }
+                return !pending.isEmpty();
+            }
+
+            @Override
+            public Edit<T> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return pending.poll();
+            }
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(edits, Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        );
+    }
+
+    /**
+     * The state of aligning one pair of streams.
+     */
+    private final class Run {
+
+        private final Iterator<? extends T> source;
+        private final Iterator<? extends T> target;
+        private final List<T> sourceBuffer = new ArrayList<>();
+        private final List<T> targetBuffer = new ArrayList<>();
+        private int sourceOffset;
+        private int targetOffset;
+        private double cost;
+
+        Run(Iterator<? extends T> source, Iterator<? extends T> target) {
+            this.source = Objects.requireNonNull(source);
+            this.target = Objects.requireNonNull(target);
+        }
+
+        /**
+         * Align the next window and commit a prefix of its edits.
+         *
+         * @return false once both streams are exhausted and every edit has been committed.
+         */
+        boolean commit(Consumer<? super Edit<T>> consumer) {
+            fill(source, sourceBuffer);
+            fill(target, targetBuffer);
+            if (sourceBuffer.isEmpty() && targetBuffer.isEmpty()) {
+                return false;
+            }
+            Alignment<T> alignment = aligner.align(sourceBuffer, targetBuffer);
+            List<Edit<T>> edits = alignment.edits();
+
+            int count = edits.size();
+            if (source.hasNext() || target.hasNext()) {
+                count = committed(edits);
+            }
+            Edit<T> last = edits.get(count - 1);
+            int sourceEnd = last.source().end();
+            int targetEnd = last.target().end();
+            cost += count == edits.size()
+                    ? alignment.cost()
+                    : aligner.cost(sourceBuffer.subList(0, sourceEnd), targetBuffer.subList(0, targetEnd));
+
+            for (int n = 0; n < count; n++) {
+                Edit<T> edit = edits.get(n);
+                consumer.accept(edit.mapSegments(
+                        s -> Segment.of(sourceOffset + s.position(), new ArrayList<>(s.tokens())),
+                        t -> Segment.of(targetOffset + t.position(), new ArrayList<>(t.tokens()))
+                ));
+            }
+            sourceBuffer.subList(0, sourceEnd).clear();
+            targetBuffer.subList(0, targetEnd).clear();
+            sourceOffset += sourceEnd;
+            targetOffset += targetEnd;
+            return true;
+        }
+
+        /**
+         * The number of edits to commit: up to the last equal edit that ends within the first half of the window, or
+         * else all edits that do, and at least one.
+         */
+        private int committed(List<Edit<T>> edits) {
+            int half = window / 2;
+            int lastEqual = -1;
+            int n = 0;
+            while (n < edits.size()) {
+                Edit<T> edit = edits.get(n);
+                if (edit.source().end() > half || edit.target().end() > half) {
+                    break;
+                }
+                if (edit.operation() == Operation.EQUAL) {
+                    lastEqual = n;
+                }
+                n++;
+            }
+            return lastEqual >= 0 ? lastEqual + 1 : Math.max(1, n);
+        }
+
+        private void fill(Iterator<? extends T> tokens, List<T> buffer) {
+            while (buffer.size() < window && tokens.hasNext()) {
+                buffer.add(tokens.next());
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.manzurola.aligner;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Detects transposed blocks incrementally. The tokens of both lists are mapped once to the ids of their equivalence
+ * classes under the comparator. Two blocks are then transposed when every class occurs as many times in one as in the
+ * other, which is tracked while the blocks grow up the diagonal one pair of tokens at a time, in O(1) per pair instead
+ * of copying and sorting both blocks at every step.
+ */
+final class Transpositions {
+
+    private final int[] source;
+    private int[] target;
+    private int[] counts;
+    private int[] touched = new int[16];
+    private int size;
+    private int unbalanced;
+
+    private Transpositions(int[] source, int[] target, int classes) {
+        this.source = source;
+        this.target = target;
+        this.counts = new int[classes];
+    }
+
+    /**
+     * Map the tokens of source and target to their classes under {@code comparator}.
+     */
+    static <T> Transpositions of(Comparator<? super T> comparator, T[] source, T[] target) {
+        Map<T, Integer> classes = new TreeMap<>(comparator);
+        int[] sourceClasses = classes(classes, source);
+        int[] targetClasses = classes(classes, target);
+        return new Transpositions(sourceClasses, targetClasses, classes.size());
+    }
+
+    /**
+     * Map int tokens to classes, each distinct value being its own class: the index of the value among the sorted
+     * distinct values of both arrays, found by binary search so that no token is boxed.
+     */
+    static Transpositions of(int[] source, int[] target) {
+        int[] values = Arrays.copyOf(source, source.length + target.length);
+        System.arraycopy(target, 0, values, source.length, target.length);
+        Arrays.sort(values);
+        int distinct = 0;
+        for (int k = 0; k < values.length; k++) {
+            if (k == 0 || values[k] != values[k - 1]) {
+                values[distinct++] = values[k];
+            }
+        }
+        return new Transpositions(classes(values, distinct, source), classes(values, distinct, target), distinct);
+    }
+
+    private static int[] classes(int[] values, int distinct, int[] tokens) {
+        int[] result = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            result[i] = Arrays.binarySearch(values, 0, distinct, tokens[i]);
+        }
+        return result;
+    }
+
+    /**
+     * A detector for a target that grows one token at a time with {@link #appendTarget(int, int)}, over source tokens
+     * already mapped to classes.
+     */
+    static Transpositions growing(int[] source, int classes) {
+        return new Transpositions(source, new int[16], classes);
+    }
+
+    /**
+     * Set the class of target token {@code j}, the next one, which may be a class not seen before.
+     */
+    void appendTarget(int j, int c) {
+        if (j == target.length) {
+            target = Arrays.copyOf(target, j << 1);
+        }
+        target[j] = c;
+        if (c >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(c + 1, counts.length << 1));
+        }
+    }
+
+    /**
+     * A detector over the same classes with counts of its own, so that another thread can use it.
+     */
+    Transpositions copy() {
+        return new Transpositions(source, target, counts.length);
+    }
+
+    private static <T> int[] classes(Map<T, Integer> classes, T[] tokens) {
+        int[] result = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            result[i] = classes.computeIfAbsent(tokens[i], k -> classes.size());
+        }
+        return result;
+    }
+
+    /**
+     * Start a new pair of blocks, ending at source token {@code i} and target token {@code j}.
+     */
+    void begin(int i, int j) {
+        for (int n = 0; n < size; n++) {
+            counts[touched[n]] = 0;
+        }
+        size = 0;
+        unbalanced = 0;
+        extend(i, j);
+    }
+
+    /**
+     * Extend the blocks by source token {@code i} and target token {@code j}.
+     *
+     * @return true if the blocks are now transposed, i.e. hold the same classes the same number of times.
+     */
+    boolean extend(int i, int j) {
+        int sourceClass = source[i];
+        int targetClass = target[j];
+        if (sourceClass != targetClass) {
+            count(sourceClass, 1);
+            count(targetClass, -1);
+        }
+        return unbalanced == 0;
+    }
+
+    private void count(int c, int delta) {
+        int before = counts[c];
+        counts[c] = before + delta;
+        if (before == 0) {
+            unbalanced++;
+            if (size == touched.length) {
+                touched = Arrays.copyOf(touched, size << 1);
+            }
+            touched[size++] = c;
+        } else if (counts[c] == 0) {
+            unbalanced--;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.manzurola.aligner;
+
+import io.github.manzurola.aligner.edit.Operation;
+
+import java.util.Arrays;
+
+/**
+ * The common prefix and suffix of a source and a target, whose tokens are aligned as equal edits without filling any
+ * cell of the matrix for them. Only the middle, from source token {@link #prefix} to {@link #sourceEnd} and from target
+ * token {@link #prefix} to {@link #targetEnd}, is aligned with a matrix.
+ * <p>
+ * Trimming the common suffix is exact: a cell of equal tokens always takes the cost of its diagonal neighbour, and the
+ * cells above and to the left of it never depend on it, so the bottom right cells of a common suffix only copy the cost
+ * of the middle and are backtracked diagonally.
+ * <p>
+ * Trimming the common prefix is not: the middle starts from the unit cost edges of a new first row and column, instead
+ * of the costs that cells below and to the right of the prefix would have had. With the default unit costs the cost is
+ * unchanged, but the edits may be another alignment of the same cost, and with custom costs the cost may differ too.
+ * Trimming the prefix is therefore enabled with {@link Aligner.Builder#setTrimCommonPrefix(boolean)} and
+ * {@link IntAligner.Builder#setTrimCommonPrefix(boolean)}.
+ */
+final class Trim {
+
+    final int prefix;
+    final int sourceEnd;
+    final int targetEnd;
+    private final int sourceLength;
+
+    private Trim(int prefix, int sourceEnd, int targetEnd, int sourceLength) {
+        this.prefix = prefix;
+        this.sourceEnd = sourceEnd;
+        this.targetEnd = targetEnd;
+        this.sourceLength = sourceLength;
+    }
+
+    /**
+     * Find the common suffix, and the common prefix if {@code trimPrefix} is set, of a source of length {@code m} and a
+     * target of length {@code n}.
+     */
+    static Trim of(IndexEqualizer equal, int m, int n, boolean trimPrefix) {
+        int prefix = 0;
+        if (trimPrefix) {
+            while (prefix < m && prefix < n && equal.isEqual(prefix, prefix)) {
+                prefix++;
+            }
+        }
+        int sourceEnd = m;
+        int targetEnd = n;
+        while (sourceEnd > prefix && targetEnd > prefix && equal.isEqual(sourceEnd - 1, targetEnd - 1)) {
+            sourceEnd--;
+            targetEnd--;
+        }
+        return new Trim(prefix, sourceEnd, targetEnd, m);
+    }
+
+    boolean isEmpty() {
+        return prefix == 0 && sourceEnd == sourceLength;
+    }
+
+    /**
+     * The source tokens of the middle.
+     */
+    <T> T[] source(T[] source) {
+        return isEmpty() ? source : Arrays.copyOfRange(source, prefix, sourceEnd);
+    }
+
+    /**
+     * The target tokens of the middle.
+     */
+    <T> T[] target(T[] target) {
+        return isEmpty() ? target : Arrays.copyOfRange(target, prefix, targetEnd);
+    }
+
+    int[] source(int[] source) {
+        return isEmpty() ? source : Arrays.copyOfRange(source, prefix, sourceEnd);
+    }
+
+    int[] target(int[] target) {
+        return isEmpty() ? target : Arrays.copyOfRange(target, prefix, targetEnd);
+    }
+
+    /**
+     * Compare the tokens of the middle by their indices in the middle.
+     */
+    IndexEqualizer middle(IndexEqualizer equal) {
+        return prefix == 0 ? equal : (i, j) -> equal.isEqual(prefix + i, prefix + j);
+    }
+
+    /**
+     * Append an equal edit for each token of the prefix.
+     */
+    void addPrefix(Script script) {
+        script.add(Operation.EQUAL, 1, prefix);
+    }
+
+    /**
+     * Append an equal edit for each token of the suffix.
+     */
+    void addSuffix(Script script) {
+        script.add(Operation.EQUAL, 1, sourceLength - sourceEnd);
+    }
+}
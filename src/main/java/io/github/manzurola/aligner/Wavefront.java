@@ -0,0 +1,88 @@
+package io.github.manzurola.aligner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Fills a matrix in parallel, in square tiles ordered by anti-diagonal. A cell only depends on cells above it, to its
+ * left and up its diagonal, as far back as a transposition may look. All of those are in tiles that are neither below
+ * nor to the right of its own tile, and such tiles are on an earlier anti-diagonal, or are the tile itself. So the
+ * tiles of one anti-diagonal can be filled at the same time, each row by row, once the previous anti-diagonal is done.
+ * Every cell is computed from the same cells as when filling row by row, so the matrix is identical.
+ * <p>
+ * The tiles of an anti-diagonal are divided into one contiguous run per worker, and each worker gets its own index so
+ * that it can keep state, such as a transposition detector, that is not shared.
+ */
+final class Wavefront {
+
+    /**
+     * Fills the cells of source rows [i0, i1) and target columns [j0, j1) of a tile.
+     */
+    @FunctionalInterface
+    interface TileFiller {
+        void fill(int i0, int i1, int j0, int j1, int worker);
+    }
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final int tileSize;
+
+    /**
+     * @param pool        the pool the tiles are filled on, which the wavefront does not own or shut down.
+     * @param parallelism the number of workers that fill the tiles of an anti-diagonal.
+     */
+    Wavefront(ForkJoinPool pool, int parallelism, int tileSize) {
+        this.pool = pool;
+        this.parallelism = parallelism;
+        this.tileSize = tileSize;
+    }
+
+    int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Fill the cells of a source of length {@code m} and a target of length {@code n}.
+     */
+    void fill(int m, int n, TileFiller filler) {
+        int rows = (m + tileSize - 1) / tileSize;
+        int columns = (n + tileSize - 1) / tileSize;
+        for (int d = 0; d < rows + columns - 1; d++) {
+            int first = Math.max(0, d - columns + 1);
+            int last = Math.min(d, rows - 1);
+            int tiles = last - first + 1;
+            int workers = Math.min(parallelism, tiles);
+            if (workers == 1) {
+                fillTiles(m, n, d, first, last, 0, filler);
+                continue;
+            }
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(workers);
+            for (int w = 0; w < workers; w++) {
+                int from = first + (int) ((long) tiles * w / workers);
+                int to = first + (int) ((long) tiles * (w + 1) / workers) - 1;
+                int worker = w;
+                int diagonal = d;
+                tasks.add(ForkJoinTask.adapt(() -> fillTiles(m, n, diagonal, from, to, worker, filler)));
+            }
+            pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        }
+    }
+
+    /**
+     * Fill the tiles of anti-diagonal {@code d} whose tile rows are in [first, last].
+     */
+    private void fillTiles(int m, int n, int d, int first, int last, int worker, TileFiller filler) {
+        for (int r = first; r <= last; r++) {
+            int c = d - r;
+            filler.fill(
+                    r * tileSize,
+                    Math.min(m, (r + 1) * tileSize),
+                    c * tileSize,
+                    Math.min(n, (c + 1) * tileSize),
+                    worker
+            );
+        }
+    }
+}
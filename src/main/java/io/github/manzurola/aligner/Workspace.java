@@ -0,0 +1,51 @@
+package io.github.manzurola.aligner;
+
+/**
+ * Storage for the matrices of successive alignments on one thread, so that in steady state aligning allocates no
+ * matrix at all. The storage grows geometrically, to the larger of the matrix requested and twice its previous size,
+ * but never beyond {@code maxRetainedCells}. A larger matrix is allocated on its own and left to the garbage collector
+ * once the alignment is done, so that one long pair does not pin its memory to the thread for good.
+ * <p>
+ * A workspace lends out one matrix at a time. Should it be asked for another before the first is released, as when a
+ * cost function aligns lists itself with the same aligner, the second matrix is allocated on its own as well.
+ */
+final class Workspace {
+
+    private final int maxRetainedCells;
+    private double[] costs = new double[0];
+    private byte[] ops = new byte[0];
+    private int[] lengths = new int[0];
+    private Matrix leased;
+
+    Workspace(int maxRetainedCells) {
+        this.maxRetainedCells = maxRetainedCells;
+    }
+
+    /**
+     * Get a matrix for aligning a source of length {@code m} and a target of length {@code n}, backed by the storage of
+     * this workspace if possible. It must be passed to {@link #release(Matrix)} once the alignment is done.
+     */
+    Matrix lease(int m, int n) {
+        long size = (long) (m + 1) * (n + 1);
+        if (leased != null || size > maxRetainedCells) {
+            return new Matrix(m, n);
+        }
+        if (costs.length < size) {
+            int capacity = (int) Math.min(Math.max(size, 2L * costs.length), maxRetainedCells);
+            costs = new double[capacity];
+            ops = new byte[capacity];
+            lengths = new int[capacity];
+        }
+        leased = new Matrix(m, n, costs, ops, lengths);
+        return leased;
+    }
+
+    /**
+     * Return a matrix obtained from {@link #lease(int, int)}, after which its cells may be overwritten.
+     */
+    void release(Matrix matrix) {
+        if (matrix == leased) {
+            leased = null;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package io.github.manzurola.aligner.codec;
+
+import io.github.manzurola.aligner.Alignment;
+import io.github.manzurola.aligner.edit.Edit;
+import io.github.manzurola.aligner.edit.Operation;
+import io.github.manzurola.aligner.edit.Segment;
+import io.github.manzurola.aligner.patch.Patch;
+
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A compact binary encoding of alignments and patches. Consecutive edits of the same operation and sizes, each
+ * starting where the previous one ends, are written as a single run: the operation, the number of edits, the gaps
+ * between the start of the first edit and the end of the edit before it, and the number of source and target tokens
+ * of each edit. Counts and sizes are unsigned varints and gaps are signed ones, so a run is at least 6 bytes. The runs
+ * of an alignment, whose gaps are all zero, take 6 bytes for up to 127 edits and one more byte for every further 7
+ * bits of their count.
+ * <p>
+ * With a {@link TokenCodec}, the tokens of each run follow it. Without one, only positions are written, and the tokens
+ * of the decoded edits are taken from the source and target passed to the reader.
+ * <p>
+ * A {@link Writer} writes any number of alignments and patches after a header, and a {@link Reader} reads them back in
+ * the same order. Both work on a {@link ByteBuffer}, or stream through a buffer of their own to or from a channel.
+ */
+public final class EditCodec<T> {
+
+    private static final int MAGIC = 0x45444954;
+    private static final int VERSION = 1;
+    private static final int TOKENS = 1;
+    private static final byte ALIGNMENT = 1;
+    private static final byte PATCH = 2;
+    private static final byte END = -1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    private final TokenCodec<T> tokens;
+
+    private EditCodec(TokenCodec<T> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * A codec that writes positions only.
+     */
+    public static <T> EditCodec<T> of() {
+        return new EditCodec<>(null);
+    }
+
+    /**
+     * A codec that writes the tokens of every edit with {@code tokens}.
+     */
+    public static <T> EditCodec<T> of(TokenCodec<T> tokens) {
+        return new EditCodec<>(Objects.requireNonNull(tokens));
+    }
+
+    /**
+     * Write into {@code buffer}, from its position on. Running out of room throws
+     * {@link java.nio.BufferOverflowException}.
+     */
+    public final Writer<T> writer(ByteBuffer buffer) {
+        return new Writer<>(this, new Output(Objects.requireNonNull(buffer), null));
+    }
+
+    /**
+     * Write to {@code channel} through a buffer, which is drained when full and by {@link Writer#flush()}.
+     */
+    public final Writer<T> writer(WritableByteChannel channel) {
+        return new Writer<>(this, new Output(ByteBuffer.allocate(BUFFER_SIZE), Objects.requireNonNull(channel)));
+    }
+
+    /**
+     * Read the bytes of {@code buffer} between its position and its limit.
+     */
+    public final Reader<T> reader(ByteBuffer buffer) {
+        return new Reader<>(this, new Input(Objects.requireNonNull(buffer), null));
+    }
+
+    /**
+     * Read from {@code channel}, which must be blocking, through a buffer. The reader may read past the last record it
+     * returns.
+     */
+    public final Reader<T> reader(ReadableByteChannel channel) {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip();
+        return new Reader<>(this, new Input(buffer, Objects.requireNonNull(channel)));
+    }
+
+    /**
+     * Writes alignments and patches, after a header that is written with the first of them.
+     */
+    public static final class Writer<T> implements Flushable {
+
+        private final EditCodec<T> codec;
+        private final Output out;
+        private boolean started;
+
+        private Writer(EditCodec<T> codec, Output out) {
+            this.codec = codec;
+            this.out = out;
+        }
+
+        /**
+         * @throws IllegalArgumentException if an edit has no source and no target tokens.
+         */
+        public final void write(Alignment<T> alignment) throws IOException {
+            checkEdits(alignment);
+            begin();
+            out.writeByte(ALIGNMENT);
+            out.writeDouble(alignment.cost());
+            writeEdits(alignment);
+        }
+
+        /**
+         * @throws IllegalArgumentException if an edit has no source and no target tokens.
+         */
+        public final void write(Patch<T> patch) throws IOException {
+            Alignment<T> edits = Alignment.of(patch.getEdits(), 0);
+            checkEdits(edits);
+            begin();
+            out.writeByte(PATCH);
+            writeEdits(edits);
+        }
+
+        /**
+         * Write what is buffered to the channel.
+         */
+        @Override
+        public final void flush() throws IOException {
+            out.flush();
+        }
+
+        private void begin() throws IOException {
+            if (!started) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeByte(codec.tokens != null ? TOKENS : 0);
+                started = true;
+            }
+        }
+
+        /**
+         * Reject edits of no tokens before anything is written, as a reader cannot tell runs of them from corrupt
+         * input.
+         */
+        private static void checkEdits(Alignment<?> alignment) {
+            Alignment.Cursor<?> cursor = alignment.cursor();
+            while (cursor.next()) {
+                if (cursor.sourceSize() == 0 && cursor.targetSize() == 0) {
+                    throw new IllegalArgumentException("cannot write an edit of no tokens");
+                }
+            }
+        }
+
+        private void writeEdits(Alignment<T> alignment) throws IOException {
+            Alignment.Cursor<T> cursor = alignment.cursor();
+            Alignment.Cursor<T> tokens = codec.tokens != null ? alignment.cursor() : null;
+            int sourceEnd = 0;
+            int targetEnd = 0;
+            boolean more = cursor.next();
+            while (more) {
+                Operation op = cursor.operation();
+                int sourceSize = cursor.sourceSize();
+                int targetSize = cursor.targetSize();
+                int sourceGap = cursor.sourcePosition() - sourceEnd;
+                int targetGap = cursor.targetPosition() - targetEnd;
+                sourceEnd = cursor.sourcePosition() + sourceSize;
+                targetEnd = cursor.targetPosition() + targetSize;
+                int count = 1;
+                while ((more = cursor.next()) &&
+                       cursor.operation() == op &&
+                       cursor.sourceSize() == sourceSize &&
+                       cursor.targetSize() == targetSize &&
+                       cursor.sourcePosition() == sourceEnd &&
+                       cursor.targetPosition() == targetEnd) {
+                    sourceEnd += sourceSize;
+                    targetEnd += targetSize;
+                    count++;
+                }
+
+                out.writeByte(op.ordinal());
+                out.writeVarint(count);
+                out.writeSignedVarint(sourceGap);
+                out.writeSignedVarint(targetGap);
+                out.writeVarint(sourceSize);
+                out.writeVarint(targetSize);
+                if (tokens != null) {
+                    for (int n = 0; n < count; n++) {
+                        tokens.next();
+                        for (int k = 0; k < sourceSize; k++) {
+                            codec.tokens.write(out, tokens.sourceToken(k));
+                        }
+                        for (int k = 0; k < targetSize; k++) {
+                            codec.tokens.write(out, tokens.targetToken(k));
+                        }
+                    }
+                }
+            }
+            out.writeByte(END);
+        }
+    }
+
+    /**
+     * Reads the alignments and patches of a writer in the order they were written.
+     */
+    public static final class Reader<T> {
+
+        private final EditCodec<T> codec;
+        private final Input in;
+        private boolean started;
+        private boolean hasTokens;
+
+        private Reader(EditCodec<T> codec, Input in) {
+            this.codec = codec;
+            this.in = in;
+        }
+
+        /**
+         * @return true if there is another alignment or patch to read.
+         */
+        public final boolean hasNext() throws IOException {
+            return begin() && in.fill(1);
+        }
+
+        /**
+         * Read an alignment written with its tokens.
+         */
+        public final Alignment<T> readAlignment() throws IOException {
+            return readAlignment(null, null);
+        }
+
+        /**
+         * Read an alignment of {@code source} and {@code target}, whose tokens are taken from them unless they were
+         * written too.
+         */
+        public final Alignment<T> readAlignment(List<T> source, List<T> target) throws IOException {
+            expect(ALIGNMENT, source, target);
+            double cost = in.readDouble();
+            return Alignment.of(readEdits(source, target), cost);
+        }
+
+        /**
+         * Read a patch written with its tokens.
+         */
+        public final Patch<T> readPatch() throws IOException {
+            return readPatch(null, null);
+        }
+
+        /**
+         * Read a patch of {@code source} into {@code target}, whose tokens are taken from them unless they were written
+         * too.
+         */
+        public final Patch<T> readPatch(List<T> source, List<T> target) throws IOException {
+            expect(PATCH, source, target);
+            return new Patch<>(readEdits(source, target));
+        }
+
+        private boolean begin() throws IOException {
+            if (!started) {
+                if (!in.fill(1)) {
+                    return false;
+                }
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("not an edit script");
+                }
+                int version = in.readUnsignedByte();
+                if (version != VERSION) {
+                    throw new IOException("unsupported edit script version " + version);
+                }
+                hasTokens = (in.readUnsignedByte() & TOKENS) != 0;
+                if (hasTokens && codec.tokens == null) {
+                    throw new IOException("tokens were written, but there is no token codec to read them");
+                }
+                started = true;
+            }
+            return true;
+        }
+
+        /**
+         * Check that the next record is of {@code kind} and that its tokens can be read, and read its kind. Nothing of
+         * the record is read if the source and target are required but missing.
+         */
+        private void expect(byte kind, List<T> source, List<T> target) throws IOException {
+            if (!hasNext()) {
+                throw new EOFException();
+            }
+            if (!hasTokens && (source == null || target == null)) {
+                throw new IllegalStateException("tokens were not written, the source and target are required");
+            }
+            byte actual = in.readByte();
+            if (actual != kind) {
+                throw new IOException("expected " + name(kind) + " but found " + name(actual));
+            }
+        }
+
+        private static String name(byte kind) {
+            return kind == ALIGNMENT ? "an alignment" : kind == PATCH ? "a patch" : "record " + kind;
+        }
+
+        private List<Edit<T>> readEdits(List<T> source, List<T> target) throws IOException {
+            List<Edit<T>> edits = new ArrayList<>();
+            int sourceEnd = 0;
+            int targetEnd = 0;
+            for (byte code = in.readByte(); code != END; code = in.readByte()) {
+                if (code < 0 || code >= OPERATIONS.length) {
+                    throw new IOException("corrupt edit script: operation " + code);
+                }
+                Operation op = OPERATIONS[code];
+                int count = in.readVarint();
+                long sourceStart = sourceEnd + (long) in.readSignedVarint();
+                long targetStart = targetEnd + (long) in.readSignedVarint();
+                int sourceSize = in.readVarint();
+                int targetSize = in.readVarint();
+                if (count < 0 || sourceSize < 0 || targetSize < 0 || sourceSize == 0 && targetSize == 0 ||
+                    sourceStart < 0 || sourceStart + (long) count * sourceSize > Integer.MAX_VALUE ||
+                    targetStart < 0 || targetStart + (long) count * targetSize > Integer.MAX_VALUE) {
+                    throw new IOException("corrupt edit script: run of " + count + " edits of " + sourceSize +
+                                          " source and " + targetSize + " target tokens at " + sourceStart + ", " +
+                                          targetStart);
+                }
+                int sourcePosition = (int) sourceStart;
+                int targetPosition = (int) targetStart;
+                for (int n = 0; n < count; n++) {
+                    edits.add(Edit.of(
+                            op,
+                            Segment.of(sourcePosition, tokens(source, sourcePosition, sourceSize)),
+                            Segment.of(targetPosition, tokens(target, targetPosition, targetSize))
+                    ));
+                    sourcePosition += sourceSize;
+                    targetPosition += targetSize;
+                }
+                sourceEnd = sourcePosition;
+                targetEnd = targetPosition;
+            }
+            return edits;
+        }
+
+        private List<T> tokens(List<T> list, int position, int size) throws IOException {
+            if (!hasTokens) {
+                if (position < 0 || position + size > list.size()) {
+                    throw new IOException("corrupt edit script: segment [" + position + ", " + (position + size) +
+                                          ") is outside a list of " + list.size() + " tokens");
+                }
+                return list.subList(position, position + size);
+            }
+            // The size is only trusted as far as the tokens can be read
+            List<T> tokens = new ArrayList<>(Math.min(size, BUFFER_SIZE));
+            for (int k = 0; k < size; k++) {
+                tokens.add(codec.tokens.read(in));
+            }
+            return tokens;
+        }
+    }
+}
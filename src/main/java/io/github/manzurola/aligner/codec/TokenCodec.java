@@ -0,0 +1,49 @@
+package io.github.manzurola.aligner.codec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads the tokens of the edits encoded by an {@link EditCodec}.
+ */
+public interface TokenCodec<T> {
+
+    void write(DataOutput out, T token) throws IOException;
+
+    T read(DataInput in) throws IOException;
+
+    /**
+     * Strings in modified UTF-8, as {@link DataOutput#writeUTF(String)} writes them.
+     */
+    static TokenCodec<String> strings() {
+        return new TokenCodec<String>() {
+            @Override
+            public void write(DataOutput out, String token) throws IOException {
+                out.writeUTF(token);
+            }
+
+            @Override
+            public String read(DataInput in) throws IOException {
+                return in.readUTF();
+            }
+        };
+    }
+
+    /**
+     * Integers as 4 bytes each.
+     */
+    static TokenCodec<Integer> integers() {
+        return new TokenCodec<Integer>() {
+            @Override
+            public void write(DataOutput out, Integer token) throws IOException {
+                out.writeInt(token);
+            }
+
+            @Override
+            public Integer read(DataInput in) throws IOException {
+                return in.readInt();
+            }
+        };
+    }
+}
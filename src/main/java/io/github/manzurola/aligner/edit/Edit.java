@@ -97,6 +97,20 @@ public abstract class Edit<T> implements Comparable<Edit<T>> {
         return Optional.of(this).filter(predicate);
     }
 
+    /**
+     * The edit that turns the target segment of this edit into its source segment. Inserts become deletes and deletes
+     * become inserts, the other operations are unchanged.
+     */
+    public final Edit<T> invert() {
+        Operation operation = operation();
+        if (operation == Operation.INSERT) {
+            operation = Operation.DELETE;
+        } else if (operation == Operation.DELETE) {
+            operation = Operation.INSERT;
+        }
+        return of(operation, target, source);
+    }
+
     /**
      * Create a new Edit R with the elements from source and target based on the index positions of the segments of this
      * Edit. Equal to:
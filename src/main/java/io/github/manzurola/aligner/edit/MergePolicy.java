@@ -0,0 +1,48 @@
+package io.github.manzurola.aligner.edit;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Decides which adjacent edits of an alignment are merged into one, for
+ * {@link io.github.manzurola.aligner.Alignment#merge(MergePolicy)}. Runs of consecutive edits that the policy accepts
+ * pairwise are merged as {@link Edit#mergeWith(Edit)} would merge them one after the other.
+ */
+@FunctionalInterface
+public interface MergePolicy<T> {
+
+    /**
+     * @param left  an edit.
+     * @param right the edit that follows {@code left}, starting where it ends in both the source and the target.
+     * @return true if the edits should be part of the same merged edit.
+     */
+    boolean canMerge(Edit<T> left, Edit<T> right);
+
+    /**
+     * Merge adjacent edits whose operations are both among {@code operations}.
+     */
+    static <T> MergePolicy<T> byOperation(Operation... operations) {
+        Set<Operation> set = EnumSet.noneOf(Operation.class);
+        for (Operation operation : operations) {
+            set.add(Objects.requireNonNull(operation));
+        }
+        return (left, right) -> set.contains(left.operation()) && set.contains(right.operation());
+    }
+
+    /**
+     * Merge adjacent edits that both match {@code predicate}.
+     */
+    static <T> MergePolicy<T> byPredicate(Predicate<? super Edit<T>> predicate) {
+        Objects.requireNonNull(predicate);
+        return (left, right) -> predicate.test(left) && predicate.test(right);
+    }
+
+    /**
+     * Merge all adjacent edits that are not equal edits.
+     */
+    static <T> MergePolicy<T> diffs() {
+        return byOperation(Operation.INSERT, Operation.DELETE, Operation.SUBSTITUTE, Operation.TRANSPOSE);
+    }
+}
@@ -33,6 +33,14 @@ public final class Segment<T> implements Comparable<Segment<T>> {
         return position;
     }
 
+    /**
+     * The index just past the last token of this segment in the list it was taken from, equal to {@code position() +
+     * size()}.
+     */
+    public final int end() {
+        return position + tokens.size();
+    }
+
     public final List<T> tokens() {
         return new ArrayList<>(tokens);
     }
@@ -0,0 +1,89 @@
+package io.github.manzurola.aligner.file;
+
+import java.nio.charset.Charset;
+import java.util.Objects;
+
+/**
+ * A line of a file diffed by {@link LineDiff}, referring to its bytes in the file rather than holding them. The line
+ * terminator, {@code \n} or {@code \r\n}, is not part of the line.
+ * <p>
+ * Lines are equal if they are at the same place in files of the same content. Lines with the same content have the same
+ * {@link #id()} within one diff.
+ */
+public final class Line {
+
+    private final MappedFile file;
+    private final int number;
+    private final long offset;
+    private final long end;
+    private final int id;
+
+    Line(MappedFile file, int number, long offset, long end, int id) {
+        this.file = file;
+        this.number = number;
+        this.offset = offset;
+        this.end = end;
+        this.id = id;
+    }
+
+    /**
+     * The index of the line in its file, starting at 0.
+     */
+    public final int number() {
+        return number;
+    }
+
+    /**
+     * The byte offset of the first byte of the line in its file.
+     */
+    public final long offset() {
+        return offset;
+    }
+
+    /**
+     * The number of bytes of the line, without its terminator.
+     */
+    public final long length() {
+        return end - offset;
+    }
+
+    /**
+     * The id of the content of the line, shared by all lines of both files with the same bytes.
+     */
+    public final int id() {
+        return id;
+    }
+
+    /**
+     * Decode the bytes of the line, reading them from the mapped file.
+     */
+    public final String text(Charset charset) {
+        return new String(file.bytes(offset, end), charset);
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Line line = (Line) o;
+        return number == line.number &&
+               offset == line.offset &&
+               end == line.end &&
+               id == line.id;
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(number, offset, end, id);
+    }
+
+    @Override
+    public final String toString() {
+        return "Line{" +
+               "number=" + number +
+               ", offset=" + offset +
+               ", length=" + length() +
+               ", id=" + id +
+               '}';
+    }
+}
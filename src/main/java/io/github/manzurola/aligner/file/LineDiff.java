@@ -0,0 +1,164 @@
+package io.github.manzurola.aligner.file;
+
+import io.github.manzurola.aligner.Alignment;
+import io.github.manzurola.aligner.IntAligner;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Diffs two text files line by line without reading them into strings. Both files are memory mapped, and each line is
+ * hashed from its bytes in place. Lines with equal hashes are compared byte by byte, so that every distinct line gets
+ * an id of its own and hash collisions never make two different lines equal. The ids of the lines are then aligned
+ * with an {@link IntAligner}, and the alignment is returned over {@link Line}s, which refer to the byte ranges of the
+ * lines in their files and are only created when read.
+ * <p>
+ * Memory is 20 bytes per line plus a table of distinct lines, besides what the aligner of the ids needs. By default the
+ * ids are aligned with unit costs, bit-parallel, after trimming the common prefix and suffix, which suits files that
+ * are mostly the same.
+ */
+public final class LineDiff {
+
+    private final IntAligner aligner;
+
+    private LineDiff(IntAligner aligner) {
+        this.aligner = aligner;
+    }
+
+    /**
+     * Get a line diff that aligns line ids with a levenshtein int aligner that trims the common prefix.
+     */
+    public static LineDiff create() {
+        return of(IntAligner.builder()
+                .setTrimCommonPrefix(true)
+                .build());
+    }
+
+    /**
+     * Get a line diff that aligns line ids with {@code aligner}. Ids are equal exactly when lines are.
+     */
+    public static LineDiff of(IntAligner aligner) {
+        return new LineDiff(Objects.requireNonNull(aligner));
+    }
+
+    /**
+     * Diff the lines of source and target.
+     *
+     * @return the alignment of the lines, with segments positioned at line numbers.
+     * @throws IOException if either file cannot be mapped.
+     */
+    public final Alignment<Line> diff(Path source, Path target) throws IOException {
+        LineTable table = new LineTable();
+        Lines sourceLines = table.lines(MappedFile.map(source));
+        Lines targetLines = table.lines(MappedFile.map(target));
+        return aligner.align(sourceLines.ids(), targetLines.ids()).withTokens(sourceLines, targetLines);
+    }
+
+    /**
+     * Assigns ids to the distinct lines of the files of one diff, in an open addressing table of ids keyed by the hash
+     * of their line.
+     */
+    private static final class LineTable {
+
+        private int[] slots = new int[1 << 10];
+        private int[] hashes = new int[1 << 8];
+        // The file and line holding the first occurrence of each id
+        private final List<Lines> owners = new ArrayList<>();
+        private int[] firstLines = new int[1 << 8];
+        private int size;
+
+        Lines lines(MappedFile file) {
+            Lines result = new Lines(file);
+            long start = 0;
+            long size = file.size();
+            int hash = 0;
+            for (long position = 0; position < size; position++) {
+                byte b = file.get(position);
+                if (b == '\n') {
+                    long end = position > start && file.get(position - 1) == '\r' ? position - 1 : position;
+                    if (end < position) {
+                        hash = hash(file, start, end);
+                    }
+                    add(result, start, end, hash);
+                    start = position + 1;
+                    hash = 0;
+                } else {
+                    hash = 31 * hash + b;
+                }
+            }
+            if (start < size) {
+                add(result, start, size, hash);
+            }
+            return result;
+        }
+
+        private static int hash(MappedFile file, long start, long end) {
+            int hash = 0;
+            for (long position = start; position < end; position++) {
+                hash = 31 * hash + file.get(position);
+            }
+            return hash;
+        }
+
+        private void add(Lines result, long start, long end, int hash) {
+            int mask = slots.length - 1;
+            int slot = mix(hash) & mask;
+            while (slots[slot] != 0) {
+                int id = slots[slot] - 1;
+                if (hashes[id] == hash && sameBytes(owners.get(id), firstLines[id], result.file(), start, end)) {
+                    result.add(start, end, id);
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            int id = size++;
+            if (id == hashes.length) {
+                hashes = Arrays.copyOf(hashes, id << 1);
+                firstLines = Arrays.copyOf(firstLines, id << 1);
+            }
+            hashes[id] = hash;
+            owners.add(result);
+            firstLines[id] = result.size();
+            result.add(start, end, id);
+            slots[slot] = id + 1;
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+        }
+
+        private void rehash() {
+            int[] grown = new int[slots.length << 1];
+            int mask = grown.length - 1;
+            for (int id = 0; id < size; id++) {
+                int slot = mix(hashes[id]) & mask;
+                while (grown[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                grown[slot] = id + 1;
+            }
+            slots = grown;
+        }
+
+        private static int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean sameBytes(Lines owner, int line, MappedFile file, long start, long end) {
+            long ownerStart = owner.start(line);
+            if (owner.end(line) - ownerStart != end - start) {
+                return false;
+            }
+            MappedFile ownerFile = owner.file();
+            for (long n = 0; n < end - start; n++) {
+                if (ownerFile.get(ownerStart + n) != file.get(start + n)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
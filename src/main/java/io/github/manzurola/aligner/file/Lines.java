@@ -0,0 +1,63 @@
+package io.github.manzurola.aligner.file;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * The lines of a mapped file, stored as their byte ranges and content ids. {@link Line} objects are only created when
+ * read, so that the edits of a diff, which refer to sub lists of the lines, hold none of them.
+ */
+final class Lines extends AbstractList<Line> implements RandomAccess {
+
+    private final MappedFile file;
+    private long[] starts = new long[16];
+    private long[] ends = new long[16];
+    private int[] ids = new int[16];
+    private int size;
+
+    Lines(MappedFile file) {
+        this.file = file;
+    }
+
+    void add(long start, long end, int id) {
+        if (size == starts.length) {
+            starts = Arrays.copyOf(starts, size << 1);
+            ends = Arrays.copyOf(ends, size << 1);
+            ids = Arrays.copyOf(ids, size << 1);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        ids[size] = id;
+        size++;
+    }
+
+    MappedFile file() {
+        return file;
+    }
+
+    long start(int line) {
+        return starts[line];
+    }
+
+    long end(int line) {
+        return ends[line];
+    }
+
+    int[] ids() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    @Override
+    public Line get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("line " + index + " of " + size);
+        }
+        return new Line(file, index, starts[index], ends[index], ids[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.manzurola.aligner.file;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The bytes of a file, mapped into memory read only. A single buffer can map at most 2 GB, so larger files are mapped
+ * in consecutive regions of {@link #REGION} bytes and read through {@link #get(long)}. The mapping stays valid after
+ * the channel is closed, until the buffers are garbage collected.
+ */
+final class MappedFile {
+
+    static final int REGION_BITS = 30;
+    static final long REGION = 1L << REGION_BITS;
+
+    private final Path path;
+    private final long size;
+    private final MappedByteBuffer[] regions;
+
+    private MappedFile(Path path, long size, MappedByteBuffer[] regions) {
+        this.path = path;
+        this.size = size;
+        this.regions = regions;
+    }
+
+    static MappedFile map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((size + REGION - 1) >>> REGION_BITS)];
+            for (int r = 0; r < regions.length; r++) {
+                long position = (long) r << REGION_BITS;
+                regions[r] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(REGION, size - position));
+            }
+            return new MappedFile(path, size, regions);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long size() {
+        return size;
+    }
+
+    byte get(long position) {
+        return regions[(int) (position >>> REGION_BITS)].get((int) (position & (REGION - 1)));
+    }
+
+    /**
+     * Copy the bytes from {@code start} to {@code end}.
+     */
+    byte[] bytes(long start, long end) {
+        byte[] bytes = new byte[Math.toIntExact(end - start)];
+        for (int n = 0; n < bytes.length; n++) {
+            bytes[n] = get(start + n);
+        }
+        return bytes;
+    }
+}
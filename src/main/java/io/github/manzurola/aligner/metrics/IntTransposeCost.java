@@ -0,0 +1,7 @@
+package io.github.manzurola.aligner.metrics;
+
+@FunctionalInterface
+public interface IntTransposeCost {
+
+    double getCost(int[] source, int[] target);
+}
@@ -0,0 +1,264 @@
+package io.github.manzurola.aligner.search;
+
+import io.github.manzurola.aligner.Aligner;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A Burkhard-Keller tree over token lists, for repeated range and nearest neighbour queries against a fixed or growing
+ * corpus. Each node holds a list, and its children are keyed by their cost from it. A query at cost {@code d} from a
+ * node, looking for lists within {@code r} of it, then only needs to visit the children keyed from {@code d - r} to
+ * {@code d + r}, since by the triangle inequality no list under the others can be close enough.
+ * <p>
+ * The cost of the aligner must therefore be a metric: zero only between equal lists, the same in both directions, and
+ * no greater than the cost through any third list. Levenshtein with unit or otherwise symmetric costs is one.
+ * Transpositions and common prefix trimming may break the triangle inequality, and the tree may then miss lists that
+ * are in range.
+ * <p>
+ * Costs are computed with {@link Aligner#score(List, List)}, and only the lists that are returned are aligned in full.
+ * A tree is not safe for use by several threads while lists are added to it, but may be queried concurrently otherwise.
+ */
+public final class BkTree<T> {
+
+    private static final int MAGIC = 0x424b5452;
+    private static final int VERSION = 1;
+
+    /**
+     * Writes a token to a stream, for {@link #write(OutputStream, TokenWriter)}.
+     */
+    @FunctionalInterface
+    public interface TokenWriter<T> {
+        void write(DataOutput out, T token) throws IOException;
+    }
+
+    /**
+     * Reads a token written by a {@link TokenWriter}, for {@link #read(InputStream, Aligner, TokenReader)}.
+     */
+    @FunctionalInterface
+    public interface TokenReader<T> {
+        T read(DataInput in) throws IOException;
+    }
+
+    private final Aligner<T> aligner;
+    private final List<Node<T>> nodes = new ArrayList<>();
+
+    private BkTree(Aligner<T> aligner) {
+        this.aligner = Objects.requireNonNull(aligner);
+    }
+
+    /**
+     * Get a new empty tree whose metric is the cost of {@code aligner}.
+     */
+    public static <T> BkTree<T> of(Aligner<T> aligner) {
+        return new BkTree<>(aligner);
+    }
+
+    /**
+     * Get a new tree holding {@code lists}, indexed in order.
+     */
+    public static <T> BkTree<T> of(Aligner<T> aligner, Collection<? extends List<T>> lists) {
+        BkTree<T> tree = new BkTree<>(aligner);
+        lists.forEach(tree::add);
+        return tree;
+    }
+
+    /**
+     * Add a copy of a list to the tree. Its index is the number of lists added before it.
+     *
+     * @return the index of the list.
+     */
+    public final int add(List<T> list) {
+        List<T> copy = Collections.unmodifiableList(new ArrayList<>(list));
+        int index = nodes.size();
+        if (nodes.isEmpty()) {
+            nodes.add(new Node<>(copy, index, -1, 0));
+            return index;
+        }
+        Node<T> node = nodes.get(0);
+        while (true) {
+            double cost = cost(node.list, copy);
+            Node<T> child = node.children.get(cost);
+            if (child == null) {
+                Node<T> added = new Node<>(copy, index, node.index, cost);
+                nodes.add(added);
+                node.children.put(cost, added);
+                return index;
+            }
+            node = child;
+        }
+    }
+
+    public final int size() {
+        return nodes.size();
+    }
+
+    /**
+     * The list with the given index.
+     */
+    public final List<T> get(int index) {
+        return nodes.get(index).list;
+    }
+
+    /**
+     * Find every list whose cost from the query is at most {@code radius}.
+     *
+     * @return the matches in order of cost, ties in order of index.
+     */
+    public final List<Match<T>> within(List<T> query, double radius) {
+        Objects.requireNonNull(query);
+        List<Scored<T>> found = new ArrayList<>();
+        if (nodes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        stack.push(nodes.get(0));
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.pop();
+            double cost = cost(query, node.list);
+            if (cost <= radius) {
+                found.add(new Scored<>(node, cost));
+            }
+            node.children.subMap(cost - radius, true, cost + radius, true).values().forEach(stack::push);
+        }
+        found.sort(Scored.ORDER);
+        return matches(query, found);
+    }
+
+    /**
+     * Find the {@code k} lists with the lowest cost from the query. The search radius starts unbounded and shrinks to
+     * the cost of the k-th closest list found so far.
+     *
+     * @return up to {@code k} matches in order of cost, ties in order of index.
+     */
+    public final List<Match<T>> nearest(List<T> query, int k) {
+        Objects.requireNonNull(query);
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        if (nodes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        // The worst of the best k so far is at the head
+        PriorityQueue<Scored<T>> best = new PriorityQueue<>(k + 1, Scored.ORDER.reversed());
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        stack.push(nodes.get(0));
+        while (!stack.isEmpty()) {
+            Node<T> node = stack.pop();
+            double cost = cost(query, node.list);
+            Scored<T> scored = new Scored<>(node, cost);
+            if (best.size() < k || Scored.ORDER.compare(scored, best.peek()) < 0) {
+                best.add(scored);
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+            double radius = best.size() < k ? Double.POSITIVE_INFINITY : best.peek().cost;
+            node.children.subMap(cost - radius, true, cost + radius, true).values().forEach(stack::push);
+        }
+        List<Scored<T>> found = new ArrayList<>(best);
+        found.sort(Scored.ORDER);
+        return matches(query, found);
+    }
+
+    /**
+     * Write the lists and the structure of the tree, so that it can be read back without computing any cost. Nodes are
+     * written in order of index, each with the index of its parent and its cost from it.
+     */
+    public final void write(OutputStream out, TokenWriter<? super T> tokens) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(nodes.size());
+        for (Node<T> node : nodes) {
+            data.writeInt(node.parent);
+            data.writeDouble(node.cost);
+            data.writeInt(node.list.size());
+            for (T token : node.list) {
+                tokens.write(data, token);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Read a tree written by {@link #write(OutputStream, TokenWriter)}. The aligner must have the same costs as that of
+     * the tree that was written.
+     *
+     * @throws IOException if the stream does not hold a tree, or cannot be read.
+     */
+    public static <T> BkTree<T> read(InputStream in, Aligner<T> aligner, TokenReader<? extends T> tokens)
+            throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("not a bk tree");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported bk tree version " + version);
+        }
+        BkTree<T> tree = new BkTree<>(aligner);
+        int size = data.readInt();
+        for (int index = 0; index < size; index++) {
+            int parent = data.readInt();
+            double cost = data.readDouble();
+            int length = data.readInt();
+            List<T> list = new ArrayList<>(length);
+            for (int n = 0; n < length; n++) {
+                list.add(tokens.read(data));
+            }
+            if (parent >= index || (parent < 0) != (index == 0)) {
+                throw new IOException("corrupt bk tree: node " + index + " has parent " + parent);
+            }
+            Node<T> node = new Node<>(Collections.unmodifiableList(list), index, parent, cost);
+            tree.nodes.add(node);
+            if (parent >= 0) {
+                tree.nodes.get(parent).children.put(cost, node);
+            }
+        }
+        return tree;
+    }
+
+    private double cost(List<T> source, List<T> target) {
+        return aligner.score(source, target).cost();
+    }
+
+    private List<Match<T>> matches(List<T> query, List<Scored<T>> found) {
+        List<Match<T>> matches = new ArrayList<>(found.size());
+        for (Scored<T> scored : found) {
+            Node<T> node = scored.node;
+            matches.add(Match.of(node.index, node.list, aligner.align(query, node.list)));
+        }
+        return matches;
+    }
+
+    private static final class Node<T> {
+
+        private final List<T> list;
+        private final int index;
+        private final int parent;
+        private final double cost;
+        private final NavigableMap<Double, Node<T>> children = new TreeMap<>();
+
+        Node(List<T> list, int index, int parent, double cost) {
+            this.list = list;
+            this.index = index;
+            this.parent = parent;
+            this.cost = cost;
+        }
+    }
+
+    private static final class Scored<T> {
+
+        static final Comparator<Scored<?>> ORDER = Comparator.<Scored<?>>comparingDouble(s -> s.cost)
+                .thenComparingInt(s -> s.node.index);
+
+        private final Node<T> node;
+        private final double cost;
+
+        Scored(Node<T> node, double cost) {
+            this.node = node;
+            this.cost = cost;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.manzurola.aligner.search;
+
+import io.github.manzurola.aligner.Alignment;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A candidate found by a search, with its index among the candidates searched and its alignment with the query.
+ */
+public final class Match<T> {
+
+    private final int index;
+    private final List<T> candidate;
+    private final Alignment<T> alignment;
+
+    private Match(int index, List<T> candidate, Alignment<T> alignment) {
+        this.index = index;
+        this.candidate = Objects.requireNonNull(candidate);
+        this.alignment = Objects.requireNonNull(alignment);
+    }
+
+    public static <T> Match<T> of(int index, List<T> candidate, Alignment<T> alignment) {
+        return new Match<>(index, candidate, alignment);
+    }
+
+    public final int index() {
+        return index;
+    }
+
+    public final List<T> candidate() {
+        return candidate;
+    }
+
+    /**
+     * The alignment of the query, as source, with the candidate, as target.
+     */
+    public final Alignment<T> alignment() {
+        return alignment;
+    }
+
+    public final double cost() {
+        return alignment.cost();
+    }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Match<?> match = (Match<?>) o;
+        return index == match.index &&
+               candidate.equals(match.candidate) &&
+               alignment.equals(match.alignment);
+    }
+
+    @Override
+    public final int hashCode() {
+        return Objects.hash(index, candidate, alignment);
+    }
+
+    @Override
+    public final String toString() {
+        return "Match{" +
+               "index=" + index +
+               ", candidate=" + candidate +
+               ", alignment=" + alignment +
+               '}';
+    }
+}
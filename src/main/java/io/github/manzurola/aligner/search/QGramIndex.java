@@ -0,0 +1,182 @@
+package io.github.manzurola.aligner.search;
+
+import io.github.manzurola.aligner.Aligner;
+import io.github.manzurola.aligner.Alignment;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * An inverted index of the q-grams, the runs of {@code q} consecutive tokens, of a corpus of token lists. It finds the
+ * lists that may be within an edit cost of a query without aligning the query with any of them, so that only those
+ * candidates need to be verified with an {@link Aligner}.
+ * <p>
+ * A list of length {@code n} has {@code n - q + 1} q-grams, and a single delete, insert or substitution changes at most
+ * {@code q} of them. So two lists of lengths {@code m} and {@code n} within {@code k} edits share at least
+ * {@code max(m, n) - q + 1 - k * q} q-grams, counting repeated grams as often as both lists have them. This is the
+ * count filter. A transposition of a block of {@code b} tokens changes at most {@code b + q - 1} q-grams at a cost of
+ * {@code b - 1}, so with the default transpose cost each unit of cost changes at most {@code q + 1} q-grams, and the
+ * filter uses that instead. The length filter adds that the lengths differ by at most {@code k}, as transpositions keep
+ * the length.
+ * <p>
+ * Both filters assume that every edit costs at least 1, as with the default costs. Lists too short for the count filter
+ * to exclude anything are candidates whenever their length passes. Tokens are compared by key, which must be consistent
+ * with the equalizer of the aligner.
+ * <p>
+ * An index is not safe for use by several threads while lists are added to it, but may be queried concurrently
+ * otherwise.
+ */
+public final class QGramIndex<T> {
+
+    private final int q;
+    private final boolean transpositions;
+    private final Function<? super T, ?> key;
+    private final List<List<T>> lists = new ArrayList<>();
+    private final Map<List<Object>, Posting> postings = new HashMap<>();
+    // The indices of the lists of each length
+    private final NavigableMap<Integer, List<Integer>> byLength = new TreeMap<>();
+
+    private QGramIndex(int q, boolean transpositions, Function<? super T, ?> key) {
+        this.q = q;
+        this.transpositions = transpositions;
+        this.key = Objects.requireNonNull(key);
+    }
+
+    /**
+     * Get a new empty index of q-grams for aligners without transpositions.
+     *
+     * @param key the key that tokens are compared by.
+     * @throws IllegalArgumentException if {@code q} is not positive.
+     */
+    public static <T> QGramIndex<T> of(int q, Function<? super T, ?> key) {
+        return of(q, key, false);
+    }
+
+    /**
+     * Get a new empty index of q-grams, for aligners with transpositions if {@code transpositions} is set.
+     *
+     * @param key the key that tokens are compared by.
+     * @throws IllegalArgumentException if {@code q} is not positive.
+     */
+    public static <T> QGramIndex<T> of(int q, Function<? super T, ?> key, boolean transpositions) {
+        if (q < 1) {
+            throw new IllegalArgumentException("q must be positive");
+        }
+        return new QGramIndex<>(q, transpositions, key);
+    }
+
+    /**
+     * Add a copy of a list to the index. Its index is the number of lists added before it.
+     *
+     * @return the index of the list.
+     */
+    public final int add(List<T> list) {
+        List<T> copy = Collections.unmodifiableList(new ArrayList<>(list));
+        int index = lists.size();
+        lists.add(copy);
+        byLength.computeIfAbsent(copy.size(), n -> new ArrayList<>()).add(index);
+        for (Map.Entry<List<Object>, Integer> gram : grams(copy).entrySet()) {
+            postings.computeIfAbsent(gram.getKey(), g -> new Posting()).add(index, gram.getValue());
+        }
+        return index;
+    }
+
+    public final int size() {
+        return lists.size();
+    }
+
+    /**
+     * The list with the given index.
+     */
+    public final List<T> get(int index) {
+        return lists.get(index);
+    }
+
+    /**
+     * Find the lists that may be within {@code maxCost} of the query. Every list within it is a candidate, but some
+     * candidates may not be.
+     *
+     * @return the indices of the candidates, in increasing order.
+     */
+    public final int[] candidates(List<T> query, double maxCost) {
+        Objects.requireNonNull(query);
+        if (!(maxCost >= 0)) {
+            return new int[0];
+        }
+        int k = (int) Math.min(Math.floor(maxCost), Integer.MAX_VALUE / (q + 1));
+        int m = query.size();
+        int perEdit = transpositions ? q + 1 : q;
+
+        // Shared q-grams with every list that has any
+        int[] shared = new int[lists.size()];
+        for (Map.Entry<List<Object>, Integer> gram : grams(query).entrySet()) {
+            Posting posting = postings.get(gram.getKey());
+            if (posting == null) {
+                continue;
+            }
+            for (int p = 0; p < posting.size; p += 2) {
+                shared[posting.entries[p]] += Math.min(gram.getValue(), posting.entries[p + 1]);
+            }
+        }
+
+        List<Integer> found = new ArrayList<>();
+        for (List<Integer> indices : byLength.subMap(m - k, true, m + k, true).values()) {
+            for (int index : indices) {
+                int n = lists.get(index).size();
+                if (shared[index] >= Math.max(m, n) - q + 1 - (long) k * perEdit) {
+                    found.add(index);
+                }
+            }
+        }
+        return found.stream().mapToInt(Integer::intValue).sorted().toArray();
+    }
+
+    /**
+     * Find the lists within {@code maxCost} of the query, verifying each candidate with
+     * {@link Aligner#alignWithin(List, List, double)}.
+     *
+     * @return the matches in order of cost, ties in order of index.
+     */
+    public final List<Match<T>> search(List<T> query, double maxCost, Aligner<T> aligner) {
+        List<Match<T>> matches = new ArrayList<>();
+        for (int index : candidates(query, maxCost)) {
+            List<T> list = lists.get(index);
+            Optional<Alignment<T>> alignment = aligner.alignWithin(query, list, maxCost);
+            alignment.ifPresent(a -> matches.add(Match.of(index, list, a)));
+        }
+        matches.sort(Comparator.<Match<T>>comparingDouble(Match::cost).thenComparingInt(Match::index));
+        return matches;
+    }
+
+    /**
+     * The q-grams of a list by key, with the number of times each occurs.
+     */
+    private Map<List<Object>, Integer> grams(List<T> list) {
+        Map<List<Object>, Integer> grams = new HashMap<>();
+        Object[] keys = new Object[list.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key.apply(list.get(i));
+        }
+        for (int i = 0; i + q <= keys.length; i++) {
+            grams.merge(Arrays.asList(Arrays.copyOfRange(keys, i, i + q)), 1, Integer::sum);
+        }
+        return grams;
+    }
+
+    /**
+     * The lists that have a q-gram, as pairs of list index and the number of times the gram occurs in that list.
+     */
+    private static final class Posting {
+
+        private int[] entries = new int[4];
+        private int size;
+
+        void add(int index, int count) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size << 1);
+            }
+            entries[size++] = index;
+            entries[size++] = count;
+        }
+    }
+}
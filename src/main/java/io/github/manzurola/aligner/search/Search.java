@@ -0,0 +1,201 @@
+package io.github.manzurola.aligner.search;
+
+import io.github.manzurola.aligner.Aligner;
+import io.github.manzurola.aligner.Alignment;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Finds the candidates closest to a query among a list of candidate token lists, aligning the query with as few of
+ * them as possible.
+ * <p>
+ * Each candidate first gets a lower bound on its cost, from the difference in length and, with a key, from the tokens
+ * that the query and candidate do not have in common. Candidates are then aligned in order of their bound, each with
+ * {@link Aligner#alignWithin(List, List, double)} at the cost of the k-th best match so far, so that the aligner can
+ * give up on a candidate as soon as it cannot beat it. Once the bound of the next candidate is above that cost, no
+ * candidate left can make the top k and the search ends.
+ * <p>
+ * The bounds count edits, so they only hold for aligners whose every delete, insert and substitution of unequal tokens
+ * costs at least {@link Builder#setMinEditCost(double)}. Transpositions do not change the length of a list or its
+ * tokens, and are allowed any non negative cost. Without a minimal edit cost no candidate is skipped by its bound, but
+ * alignments are still abandoned at the cost of the k-th best.
+ */
+public final class Search<T> {
+
+    /**
+     * The order of matches: lowest cost first, or highest {@link Alignment#ratio() ratio} first.
+     */
+    public enum Ranking {
+        COST,
+        RATIO
+    }
+
+    private final Aligner<T> aligner;
+    private final Function<? super T, ?> key;
+    private final double minEditCost;
+    private final Ranking ranking;
+
+    private Search(Aligner<T> aligner, Function<? super T, ?> key, double minEditCost, Ranking ranking) {
+        this.aligner = aligner;
+        this.key = key;
+        this.minEditCost = minEditCost;
+        this.ranking = ranking;
+    }
+
+    /**
+     * Get a new builder for searching with {@code aligner}, ranking by cost and without bounds by default.
+     */
+    public static <T> Builder<T> builder(Aligner<T> aligner) {
+        return new Builder<>(aligner);
+    }
+
+    /**
+     * Find the {@code k} candidates closest to the query, aligning the query as source with each candidate as target.
+     *
+     * @return up to {@code k} matches, best first. Ties are broken by the index of the candidate.
+     */
+    public final List<Match<T>> top(List<T> query, List<? extends List<T>> candidates, int k) {
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(candidates);
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+
+        double[] bounds = new double[candidates.size()];
+        TokenBag bag = key != null && minEditCost > 0 ? new TokenBag(query, key) : null;
+        for (int n = 0; n < bounds.length; n++) {
+            bounds[n] = score(lowerBound(query, candidates.get(n), bag), query.size(), candidates.get(n).size());
+        }
+        Integer[] order = new Integer[bounds.length];
+        for (int n = 0; n < order.length; n++) {
+            order[n] = n;
+        }
+        Arrays.sort(order, Comparator.comparingDouble((Integer n) -> bounds[n]));
+
+        // The worst of the best k matches so far is at the head
+        Comparator<Ranked<T>> better = Comparator.<Ranked<T>>comparingDouble(r -> r.score)
+                .thenComparingInt(r -> r.match.index());
+        PriorityQueue<Ranked<T>> best = new PriorityQueue<>(k + 1, better.reversed());
+        for (int n : order) {
+            Ranked<T> worst = best.size() == k ? best.peek() : null;
+            if (worst != null && bounds[n] > worst.score) {
+                break;
+            }
+            List<T> candidate = candidates.get(n);
+            double maxCost = worst == null ? Double.POSITIVE_INFINITY : maxCost(worst.score, query, candidate);
+            Optional<Alignment<T>> alignment = aligner.alignWithin(query, candidate, maxCost);
+            if (alignment.isEmpty()) {
+                continue;
+            }
+            Ranked<T> ranked = new Ranked<>(
+                    Match.of(n, candidate, alignment.get()),
+                    score(alignment.get().cost(), query.size(), candidate.size())
+            );
+            if (worst == null || better.compare(ranked, worst) < 0) {
+                best.add(ranked);
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<Match<T>> matches = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            matches.add(best.poll().match);
+        }
+        Collections.reverse(matches);
+        return matches;
+    }
+
+    /**
+     * A lower bound on the cost of aligning the query with a candidate.
+     */
+    private double lowerBound(List<T> query, List<T> candidate, TokenBag bag) {
+        if (minEditCost <= 0) {
+            return 0;
+        }
+        int edits = bag != null
+                ? bag.difference(candidate, key)
+                : Math.abs(query.size() - candidate.size());
+        return minEditCost * edits;
+    }
+
+    /**
+     * The score of a cost by the ranking, lower being better.
+     */
+    private double score(double cost, int querySize, int candidateSize) {
+        if (ranking == Ranking.COST) {
+            return cost;
+        }
+        int length = Math.max(querySize, candidateSize);
+        return length == 0 ? -1 : -(length - cost) / length;
+    }
+
+    /**
+     * The highest cost at which a candidate can still score no worse than {@code score}.
+     */
+    private double maxCost(double score, List<T> query, List<T> candidate) {
+        if (ranking == Ranking.COST) {
+            return score;
+        }
+        int length = Math.max(query.size(), candidate.size());
+        return length == 0 ? Double.POSITIVE_INFINITY : Math.nextUp(length + score * length);
+    }
+
+    private static final class Ranked<T> {
+
+        private final Match<T> match;
+        private final double score;
+
+        Ranked(Match<T> match, double score) {
+            this.match = match;
+            this.score = score;
+        }
+    }
+
+    public static final class Builder<T> {
+
+        private final Aligner<T> aligner;
+        private Function<? super T, ?> key;
+        private double minEditCost;
+        private Ranking ranking = Ranking.COST;
+
+        Builder(Aligner<T> aligner) {
+            this.aligner = Objects.requireNonNull(aligner);
+        }
+
+        /**
+         * Compare the tokens of the query and the candidates by key for the token bag bound. The key must be consistent
+         * with the equalizer of the aligner, see {@link Aligner.Builder#setKey(Function)}. Without a key, only the
+         * difference in length is used.
+         */
+        public Builder<T> setKey(Function<? super T, ?> key) {
+            this.key = key;
+            return this;
+        }
+
+        /**
+         * The least cost of any delete, insert or substitution of unequal tokens by the aligner, 1 for the unit costs
+         * of the default aligners. Zero, the default, disables the lower bounds.
+         *
+         * @throws IllegalArgumentException if {@code minEditCost} is negative.
+         */
+        public Builder<T> setMinEditCost(double minEditCost) {
+            if (!(minEditCost >= 0)) {
+                throw new IllegalArgumentException("min edit cost must not be negative");
+            }
+            this.minEditCost = minEditCost;
+            return this;
+        }
+
+        public Builder<T> setRanking(Ranking ranking) {
+            this.ranking = Objects.requireNonNull(ranking);
+            return this;
+        }
+
+        public Search<T> build() {
+            return new Search<>(aligner, key, minEditCost, ranking);
+        }
+    }
+}
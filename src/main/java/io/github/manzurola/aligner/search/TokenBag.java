@@ -0,0 +1,39 @@
+package io.github.manzurola.aligner.search;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The multiset of the keys of the tokens of a list. Every edit that turns one list into another adds or removes at most
+ * one token of each list, so the tokens that the bags of two lists do not have in common bound the number of edits.
+ */
+final class TokenBag {
+
+    private final Map<Object, Integer> counts = new HashMap<>();
+    private final int size;
+
+    <T> TokenBag(List<T> tokens, Function<? super T, ?> key) {
+        for (T token : tokens) {
+            counts.merge(key.apply(token), 1, Integer::sum);
+        }
+        this.size = tokens.size();
+    }
+
+    /**
+     * The least number of inserts, deletes and substitutions that turn this bag into that of {@code tokens}: the
+     * larger of the tokens only in this bag and those only in the other.
+     */
+    <T> int difference(List<T> tokens, Function<? super T, ?> key) {
+        Map<Object, Integer> remaining = new HashMap<>(counts);
+        int shared = 0;
+        for (T token : tokens) {
+            Integer count = remaining.computeIfPresent(key.apply(token), (k, c) -> c - 1);
+            if (count != null && count >= 0) {
+                shared++;
+            }
+        }
+        return Math.max(size, tokens.size()) - shared;
+    }
+}
@@ -1,21 +1,19 @@
 package io.github.manzurola.aligner.utils;
 
-import io.github.manzurola.aligner.Aligner;
-
-import java.util.stream.Collectors;
+import io.github.manzurola.aligner.CharSequenceAligner;
 
 public final class AlignerUtils {
 
-    private final static Aligner<Character> levenshteinChar = Aligner.levenshtein();
+    private final static CharSequenceAligner levenshteinChar = CharSequenceAligner.levenshtein();
 
     private AlignerUtils() {
     }
 
+    /**
+     * The levenshtein ratio of the code points of source and target, computed without boxing any character.
+     */
     public static double charEditRatio(String source, String target) {
-        return levenshteinChar.align(
-                source.chars().mapToObj(value -> (char) value).collect(Collectors.toList()),
-                target.chars().mapToObj(value -> (char) value).collect(Collectors.toList())
-        ).ratio();
+        return levenshteinChar.ratio(source, target);
     }
 
 }
@@ -1,6 +1,7 @@
 package io.github.manzurola.aligner;
 
 import io.github.manzurola.aligner.edit.Edit;
+import io.github.manzurola.aligner.edit.MergePolicy;
 import io.github.manzurola.aligner.edit.Operation;
 import io.github.manzurola.aligner.edit.Segment;
 import io.github.manzurola.aligner.metrics.Equalizer;
@@ -8,13 +9,24 @@ import io.github.manzurola.aligner.metrics.SubstituteCost;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class AlignerTest {
 
@@ -157,6 +169,517 @@ public class AlignerTest {
         assertEquals(expected, alignment.diffs());
     }
 
+    @Test
+    void scoreWithoutTraceback() {
+        Aligner<String> aligner = Aligner.damerauLevenshtein();
+
+        List<String> source = List.of("a", "guy", "is", "good", "and", "tall");
+        List<String> target = List.of("a", "is", "good", "guy", "tall");
+
+        Alignment<String> alignment = aligner.align(source, target);
+        Score score = aligner.score(source, target);
+
+        assertEquals(Score.of(alignment), score);
+        assertEquals(alignment.cost(), aligner.cost(source, target));
+        assertEquals(alignment.distance(), aligner.distance(source, target));
+        assertEquals(alignment.ratio(), score.ratio());
+        assertEquals(score.cost(), aligner.score(target, source).cost());
+    }
+
+    @Test
+    void hirschbergMatchesFullMatrixCost() {
+        Random random = new Random(7);
+        List<Integer> source = random.ints(400, 0, 5).boxed().collect(Collectors.toList());
+        List<Integer> target = random.ints(300, 0, 5).boxed().collect(Collectors.toList());
+
+        Aligner<Integer> fullMatrix = Aligner.<Integer>builder()
+                .setSubstituteCost((s, t) -> Math.abs(s - t) * 0.5)
+                .build();
+        Aligner<Integer> hirschberg = Aligner.<Integer>builder()
+                .setSubstituteCost((s, t) -> Math.abs(s - t) * 0.5)
+                .setStrategy(Aligner.Strategy.HIRSCHBERG)
+                .build();
+
+        Alignment<Integer> expected = fullMatrix.align(source, target);
+        Alignment<Integer> actual = hirschberg.align(source, target);
+
+        // The cost is summed from the leaves, so it may differ from the full matrix in the last bits
+        assertEquals(expected.cost(), actual.cost(), 1e-9);
+        assertEquals(source, actual.source());
+        assertEquals(target, actual.target());
+    }
+
+    @Test
+    void hirschbergScoreMatchesAlignWithComparatorOrTrimmedPrefix() {
+        Random random = new Random(11);
+        for (int n = 0; n < 20; n++) {
+            List<Integer> source = random.ints(200 + random.nextInt(100), 0, 3).boxed().collect(Collectors.toList());
+            List<Integer> target = new ArrayList<>(source);
+            for (int swaps = 0; swaps < 30; swaps++) {
+                int i = random.nextInt(target.size() - 1);
+                Collections.swap(target, i, i + 1);
+            }
+            for (boolean trimPrefix : new boolean[]{true, false}) {
+                Aligner.Builder<Integer> builder = Aligner.<Integer>builder()
+                        .setStrategy(Aligner.Strategy.HIRSCHBERG)
+                        .setTrimCommonPrefix(trimPrefix);
+                if (!trimPrefix) {
+                    builder.setComparator(Comparator.naturalOrder());
+                }
+                Aligner<Integer> hirschberg = builder.build();
+
+                Alignment<Integer> alignment = hirschberg.align(source, target);
+                assertEquals(Score.of(alignment), hirschberg.score(source, target));
+                assertEquals(alignment.cost(), hirschberg.cost(source, target));
+            }
+        }
+    }
+
+    @Test
+    void alignWithinMaxCost() {
+        Aligner<String> aligner = Aligner.levenshtein();
+
+        List<String> source = List.of("the", "cat", "sat", "on", "the", "mat");
+        List<String> target = List.of("the", "cat", "sits", "on", "a", "mat");
+
+        Alignment<String> expected = aligner.align(source, target);
+
+        assertEquals(Optional.of(expected), aligner.alignWithin(source, target, 2.0));
+        assertEquals(Optional.of(expected), aligner.alignWithin(source, target, 10.0));
+        assertEquals(Optional.empty(), aligner.alignWithin(source, target, 1.0));
+        assertEquals(Optional.empty(), aligner.alignWithin(source, List.of(), 5.0));
+    }
+
+    @Test
+    void bitParallelMatchesFullMatrix() {
+        Random random = new Random(11);
+        List<Integer> source = random.ints(150, 0, 4).boxed().collect(Collectors.toList());
+        List<Integer> target = random.ints(130, 0, 4).boxed().collect(Collectors.toList());
+
+        // Default unit costs are aligned bit-parallel, equivalent custom costs use the full matrix
+        Aligner<Integer> bitParallel = Aligner.levenshtein();
+        Aligner<Integer> fullMatrix = Aligner.<Integer>builder()
+                .setSubstituteCost((s, t) -> 1.0)
+                .build();
+
+        assertEquals(fullMatrix.align(source, target), bitParallel.align(source, target));
+        assertEquals(fullMatrix.align(target, source), bitParallel.align(target, source));
+        assertEquals(fullMatrix.score(source, target), bitParallel.score(source, target));
+    }
+
+    @Test
+    void charSequenceAlignerMatchesCodePointLists() {
+        String source = "kitten 😀 sitting on the mat";
+        String target = "sitting 😁 kitten on a mat";
+        List<Integer> sourcePoints = source.codePoints().boxed().collect(Collectors.toList());
+        List<Integer> targetPoints = target.codePoints().boxed().collect(Collectors.toList());
+
+        CharSequenceAligner aligner = CharSequenceAligner.levenshtein();
+        Aligner<Integer> expected = Aligner.levenshtein();
+
+        assertEquals(expected.align(sourcePoints, targetPoints), aligner.align(source, target));
+        assertEquals(expected.score(sourcePoints, targetPoints), aligner.score(source, target));
+        assertEquals(
+                aligner.score(source, target),
+                aligner.score(source.toCharArray(), target.toCharArray())
+        );
+        // A surrogate pair is a single code point
+        assertEquals(1.0, aligner.score("😀", "😁").cost());
+    }
+
+    @Test
+    void intAlignerMatchesIntegerLists() {
+        Random random = new Random(5);
+        int[] source = random.ints(90, 0, 5).toArray();
+        int[] target = random.ints(80, 0, 5).toArray();
+        List<Integer> sourceList = Arrays.stream(source).boxed().collect(Collectors.toList());
+        List<Integer> targetList = Arrays.stream(target).boxed().collect(Collectors.toList());
+
+        assertEquals(
+                Aligner.<Integer>levenshtein().align(sourceList, targetList),
+                IntAligner.levenshtein().align(source, target)
+        );
+        assertEquals(
+                Aligner.<Integer>damerauLevenshtein().align(sourceList, targetList),
+                IntAligner.damerauLevenshtein().align(source, target)
+        );
+
+        Aligner<Integer> weighted = Aligner.<Integer>builder()
+                .setSubstituteCost((s, t) -> Math.abs(s - t) * 0.5)
+                .setDeleteCost(s -> 0.75)
+                .build();
+        IntAligner intWeighted = IntAligner.builder()
+                .setSubstituteCost((s, t) -> Math.abs(s - t) * 0.5)
+                .setDeleteCost(s -> 0.75)
+                .build();
+        Alignment<Integer> alignment = intWeighted.align(source, target);
+        assertEquals(weighted.align(sourceList, targetList), alignment);
+        assertEquals(weighted.score(sourceList, targetList), intWeighted.score(source, target));
+
+        // Segments index the aligned arrays directly
+        Segment<Integer> last = alignment.edits().get(alignment.size() - 1).source();
+        assertEquals(source.length, last.end());
+
+        int[] prefixed = IntStream.concat(Arrays.stream(source, 0, 20), Arrays.stream(target)).toArray();
+        List<Integer> prefixedList = Arrays.stream(prefixed).boxed().collect(Collectors.toList());
+        for (boolean unitCost : new boolean[]{true, false}) {
+            Aligner.Builder<Integer> builder = Aligner.<Integer>builder().setTrimCommonPrefix(true);
+            IntAligner.Builder intBuilder = IntAligner.builder().setTrimCommonPrefix(true);
+            if (!unitCost) {
+                builder.setSubstituteCost((s, t) -> Math.abs(s - t) * 0.5);
+                intBuilder.setSubstituteCost((s, t) -> Math.abs(s - t) * 0.5);
+            }
+            Aligner<Integer> trimmed = builder.build();
+            IntAligner intTrimmed = intBuilder.build();
+            assertEquals(trimmed.align(sourceList, prefixedList), intTrimmed.align(source, prefixed));
+            assertEquals(trimmed.score(sourceList, prefixedList), intTrimmed.score(source, prefixed));
+        }
+    }
+
+    @Test
+    void internedTokensMatchEqualizer() {
+        Random random = new Random(3);
+        String[] words = {"a", "A", "guy", "Guy", "GUY", "is", "IS", "good"};
+        List<String> source = random.ints(70, 0, words.length).mapToObj(i -> words[i]).collect(Collectors.toList());
+        List<String> target = random.ints(60, 0, words.length).mapToObj(i -> words[i]).collect(Collectors.toList());
+
+        for (Aligner.Strategy strategy : Aligner.Strategy.values()) {
+            for (boolean unitCost : new boolean[]{true, false}) {
+                Aligner.Builder<String> builder = Aligner.<String>builder()
+                        .setEqualizer(String::equalsIgnoreCase)
+                        .setComparator(String.CASE_INSENSITIVE_ORDER)
+                        .setStrategy(strategy);
+                if (unitCost) {
+                    builder.setComparator(null);
+                } else {
+                    builder.setSubstituteCost((s, t) -> s.length() == t.length() ? 0.5 : 1.0);
+                }
+                Aligner<String> expected = builder.build();
+                Aligner<String> interned = builder.setKey(String::toLowerCase).build();
+
+                assertEquals(expected.align(source, target), interned.align(source, target));
+                assertEquals(expected.score(source, target), interned.score(source, target));
+                assertEquals(expected.alignWithin(source, target, 40), interned.alignWithin(source, target, 40));
+            }
+        }
+    }
+
+    @Test
+    void maxTranspositionSpan() {
+        List<String> source = List.of("a", "guy", "is", "good");
+        List<String> target = List.of("a", "is", "good", "guy");
+
+        Aligner<String> unbounded = Aligner.damerauLevenshtein();
+        Aligner<String> bounded = Aligner.<String>builder()
+                .setComparator(Comparator.naturalOrder())
+                .setMaxTranspositionSpan(2)
+                .build();
+
+        List<Edit<String>> expected = List.of(
+                Edit.builder()
+                        .transpose(source.subList(1, 4))
+                        .to(target.subList(1, 4))
+                        .atPosition(1, 1)
+        );
+        assertEquals(expected, unbounded.align(source, target).diffs());
+        assertTrue(bounded.align(source, target)
+                .stream()
+                .allMatch(edit -> edit.operation() != Operation.TRANSPOSE || edit.source().size() <= 2));
+        assertEquals(bounded.align(source, target).cost(), bounded.score(source, target).cost());
+    }
+
+    @Test
+    void trimCommonPrefix() {
+        List<String> source = List.of("a");
+        List<String> target = List.of("a", "a");
+
+        Aligner<String> untrimmed = Aligner.levenshtein();
+        Aligner<String> trimmed = Aligner.<String>builder()
+                .setTrimCommonPrefix(true)
+                .build();
+
+        // Both alignments cost the same, but the shared token is matched first when the prefix is trimmed
+        assertEquals(List.of(
+                Edit.builder().insert("a").atPosition(0, 0),
+                Edit.builder().equal("a").and("a").atPosition(0, 1)
+        ), untrimmed.align(source, target).edits());
+        assertEquals(List.of(
+                Edit.builder().equal("a").and("a").atPosition(0, 0),
+                Edit.builder().insert("a").atPosition(1, 1)
+        ), trimmed.align(source, target).edits());
+        assertEquals(untrimmed.score(source, target), trimmed.score(source, target));
+
+        List<String> longSource = List.of("a", "guy", "is", "good", "and", "tall");
+        List<String> longTarget = List.of("a", "guy", "was", "good", "and", "tall");
+        Alignment<String> alignment = Aligner.<String>builder()
+                .setSubstituteCost((s, t) -> 0.5)
+                .setTrimCommonPrefix(true)
+                .build()
+                .align(longSource, longTarget);
+        assertEquals(0.5, alignment.cost());
+        assertEquals(longSource, alignment.source());
+        assertEquals(longTarget, alignment.target());
+    }
+
+    @Test
+    void anchoredMatchesFullMatrixOnSimilarLists() {
+        List<Integer> source = IntStream.range(0, 3000).boxed().collect(Collectors.toList());
+        List<Integer> target = new ArrayList<>(source);
+        target.remove(10);
+        target.add(50, -1);
+        target.set(2000, -2);
+        Collections.swap(target, 100, 101);
+
+        Alignment<Integer> expected = Aligner.<Integer>levenshtein().align(source, target);
+        Alignment<Integer> actual = Aligner.<Integer>builder()
+                .setStrategy(Aligner.Strategy.ANCHORED)
+                .build()
+                .align(source, target);
+
+        assertEquals(expected.cost(), actual.cost());
+        assertEquals(source, actual.source());
+        assertEquals(target, actual.target());
+    }
+
+    @Test
+    void parallelWavefrontMatchesSequential() {
+        Random random = new Random(13);
+        List<Integer> source = random.ints(300, 0, 4).boxed().collect(Collectors.toList());
+        List<Integer> target = random.ints(280, 0, 4).boxed().collect(Collectors.toList());
+
+        Aligner<Integer> sequential = Aligner.<Integer>builder()
+                .setComparator(Comparator.naturalOrder())
+                .setSubstituteCost((s, t) -> Math.abs(s - t) * 0.75)
+                .build();
+        Aligner<Integer> parallel = Aligner.<Integer>builder()
+                .setComparator(Comparator.naturalOrder())
+                .setSubstituteCost((s, t) -> Math.abs(s - t) * 0.75)
+                .setParallelism(4)
+                .setTileSize(16)
+                .build();
+
+        assertEquals(sequential.align(source, target), parallel.align(source, target));
+    }
+
+    @Test
+    void alignAllMatchesAlignInOrder() {
+        Random random = new Random(17);
+        List<Pair<Integer>> pairs = new ArrayList<>();
+        for (int n = 0; n < 50; n++) {
+            pairs.add(Pair.of(
+                    random.ints(random.nextInt(60), 0, 5).boxed().collect(Collectors.toList()),
+                    random.ints(random.nextInt(60), 0, 5).boxed().collect(Collectors.toList())
+            ));
+        }
+        Aligner<Integer> aligner = Aligner.<Integer>builder()
+                .setComparator(Comparator.naturalOrder())
+                .build();
+
+        List<Alignment<Integer>> expected = pairs.stream()
+                .map(pair -> aligner.align(pair.source(), pair.target()))
+                .collect(Collectors.toList());
+
+        assertEquals(expected, aligner.alignAll(pairs));
+        assertEquals(expected, aligner.alignAll(pairs, ForkJoinPool.commonPool(), 3));
+    }
+
+    @Test
+    void reusedWorkspaceMatchesFreshMatrices() {
+        Random random = new Random(19);
+        Aligner<Integer> reusing = Aligner.<Integer>builder()
+                .setComparator(Comparator.naturalOrder())
+                .setMaxRetainedCells(1000)
+                .build();
+        Aligner<Integer> fresh = Aligner.<Integer>builder()
+                .setComparator(Comparator.naturalOrder())
+                .setMaxRetainedCells(0)
+                .build();
+
+        for (int n = 0; n < 30; n++) {
+            List<Integer> source = random.ints(random.nextInt(50), 0, 4).boxed().collect(Collectors.toList());
+            List<Integer> target = random.ints(random.nextInt(50), 0, 4).boxed().collect(Collectors.toList());
+            assertEquals(fresh.align(source, target), reusing.align(source, target));
+        }
+    }
+
+    @Test
+    void cachedAlignerServesRepeatedAndReversedPairs() {
+        Aligner<String> aligner = Aligner.levenshtein();
+        CachedAligner<String> cached = Aligner.cached(aligner, 2, true);
+        List<String> a = Arrays.asList("My", "name", "is", "Guy");
+        List<String> b = Arrays.asList("Your", "name", "was", "Guy", "!");
+        List<String> c = Arrays.asList("name");
+
+        assertEquals(aligner.align(a, b), cached.align(a, b));
+        assertEquals(aligner.align(a, b), cached.align(new ArrayList<>(a), new ArrayList<>(b)));
+        Alignment<String> reversed = cached.align(b, a);
+        assertEquals(aligner.align(b, a).cost(), reversed.cost());
+        assertEquals(b, reversed.source());
+        assertEquals(a, reversed.target());
+        assertEquals(CacheStats.of(2, 1, 0, 1), cached.stats());
+
+        cached.align(a, c);
+        cached.align(b, c);
+        assertEquals(CacheStats.of(2, 3, 1, 2), cached.stats());
+    }
+
+    @Test
+    void cachedAlignmentsCannotBeModifiedByCallers() {
+        CachedAligner<String> cached = Aligner.cached(Aligner.levenshtein(), 2);
+        List<String> a = Arrays.asList("My", "name", "is", "Guy");
+        List<String> b = Arrays.asList("Your", "name", "was", "Guy", "!");
+        Alignment<String> expected = Aligner.<String>levenshtein().align(a, b);
+
+        assertThrows(UnsupportedOperationException.class, () -> cached.align(a, b).edits().clear());
+        assertThrows(UnsupportedOperationException.class, () -> cached.align(a, b).edits().remove(0));
+        assertEquals(expected.edits(), cached.align(a, b).edits());
+    }
+
+    @Test
+    void scriptRejectsEditsOfUnequalSizes() {
+        List<Integer> source = Arrays.asList(1, 2, 3, 6);
+        List<Integer> target = Arrays.asList(4, 5, 6);
+        Alignment<Integer> alignment = Aligner.<Integer>levenshtein().align(source, target);
+
+        Script script = new Script();
+        script.addAll(alignment);
+        assertEquals(alignment, Alignment.of(source, target, script, alignment.cost()));
+        assertThrows(IllegalArgumentException.class, () -> new Script().addAll(alignment.merge(MergePolicy.diffs())));
+    }
+
+    @Test
+    void memoizedSubstituteCostRunsOncePerDistinctPair() {
+        List<String> source = Arrays.asList("a", "b", "c", "a", "b", "c", "a", "b");
+        List<String> target = Arrays.asList("x", "y", "x", "y", "x", "y", "c");
+        Set<List<String>> pairs = new HashSet<>();
+        int[] calls = new int[1];
+        Aligner<String> memoized = Aligner.<String>builder()
+                .setSubstituteCost((s, t) -> {
+                    calls[0]++;
+                    pairs.add(Arrays.asList(s, t));
+                    return s.compareTo(t) < 0 ? 0.5 : 1.5;
+                })
+                .setMemoizeSubstituteCost(true)
+                .build();
+        Aligner<String> plain = Aligner.<String>builder()
+                .setSubstituteCost((s, t) -> s.compareTo(t) < 0 ? 0.5 : 1.5)
+                .build();
+
+        assertEquals(plain.align(source, target), memoized.align(source, target));
+        assertEquals(pairs.size(), calls[0]);
+    }
+
+    @Test
+    void memoizedSubstituteCostHandlesManyDistinctTokens() {
+        List<Integer> source = IntStream.range(0, 60000).boxed().collect(Collectors.toList());
+        List<Integer> target = new ArrayList<>(source);
+        target.set(30000, -1);
+        Aligner<Integer> memoized = Aligner.<Integer>builder()
+                .setSubstituteCost((s, t) -> 1.5)
+                .setMemoizeSubstituteCost(true)
+                .setTrimCommonPrefix(false)
+                .build();
+
+        Optional<Alignment<Integer>> alignment = memoized.alignWithin(source, target, 2);
+
+        assertTrue(alignment.isPresent());
+        assertEquals(1.5, alignment.get().cost());
+    }
+
+    @Test
+    void incrementalAlignerMatchesFullAlignmentAfterEveryAppend() {
+        Random random = new Random(37);
+        List<Integer> source = random.ints(25, 0, 4).boxed().collect(Collectors.toList());
+        List<Integer> target = random.ints(27, 0, 4).boxed().collect(Collectors.toList());
+        Aligner.Builder<Integer> builder = Aligner.<Integer>builder()
+                .setComparator(Comparator.naturalOrder())
+                .setSubstituteCost((s, t) -> Math.abs(s - t) * 0.75);
+        Aligner<Integer> aligner = builder.build();
+        IncrementalAligner<Integer> incremental = builder.buildIncremental(source);
+        IncrementalAligner<Integer> banded = builder.buildIncremental(source, 3);
+
+        for (int j = 0; j < target.size(); j++) {
+            incremental.append(target.get(j));
+            banded.append(target.get(j));
+            Alignment<Integer> expected = aligner.align(source, target.subList(0, j + 1));
+            assertEquals(expected, incremental.alignment());
+            assertTrue(banded.cost() >= expected.cost());
+        }
+        assertEquals(banded.cost(), banded.alignment().cost());
+    }
+
+    @Test
+    void streamingAlignerCommitsEditsCoveringBothStreams() {
+        Random random = new Random(41);
+        List<Integer> source = random.ints(500, 0, 50).boxed().collect(Collectors.toList());
+        List<Integer> target = new ArrayList<>(source);
+        for (int n = 0; n < 20; n++) {
+            target.set(random.nextInt(target.size()), 50 + n);
+            target.remove(random.nextInt(target.size()));
+            target.add(random.nextInt(target.size()), 70 + n);
+        }
+        Aligner<Integer> aligner = Aligner.levenshtein();
+        Alignment<Integer> full = aligner.align(source, target);
+
+        List<Edit<Integer>> whole = new ArrayList<>();
+        double wholeCost = StreamingAligner.of(aligner, 1000)
+                .align(source.iterator(), target.iterator(), whole::add);
+        assertEquals(full, Alignment.of(whole, wholeCost));
+
+        List<Edit<Integer>> edits = new ArrayList<>();
+        double cost = StreamingAligner.of(aligner, 40).align(source.stream(), target.stream(), edits::add);
+        Alignment<Integer> windowed = Alignment.of(edits, cost);
+        assertEquals(source, windowed.source());
+        assertEquals(target, windowed.target());
+        assertEquals(full.cost(), cost);
+        assertEquals(edits, StreamingAligner.of(aligner, 40)
+                .stream(source.iterator(), target.iterator())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void compactAlignmentCursorWalksTheSameEditsAsTheEditList() {
+        Random random = new Random(43);
+        List<Integer> source = random.ints(60, 0, 5).boxed().collect(Collectors.toList());
+        List<Integer> target = random.ints(55, 0, 5).boxed().collect(Collectors.toList());
+        Alignment<Integer> alignment = Aligner.<Integer>damerauLevenshtein().align(source, target);
+        Alignment<Integer> copy = Alignment.of(new ArrayList<>(alignment.edits()), alignment.cost());
+
+        Alignment.Cursor<Integer> cursor = alignment.cursor();
+        for (Edit<Integer> edit : copy.edits()) {
+            assertTrue(cursor.next());
+            assertEquals(edit.operation(), cursor.operation());
+            assertEquals(edit.source().position(), cursor.sourcePosition());
+            assertEquals(edit.target().position(), cursor.targetPosition());
+            assertEquals(edit.source().size(), cursor.sourceSize());
+            assertEquals(edit.target().size(), cursor.targetSize());
+            for (int k = 0; k < cursor.targetSize(); k++) {
+                assertEquals(edit.target().tokens().get(k), cursor.targetToken(k));
+            }
+            assertEquals(edit, cursor.edit());
+        }
+        assertFalse(cursor.next());
+
+        assertEquals(copy, alignment);
+        assertEquals(alignment, copy);
+        assertEquals(copy.hashCode(), alignment.hashCode());
+        // Hashed and printed before its edits are ever listed
+        Alignment<Integer> fresh = Aligner.<Integer>damerauLevenshtein().align(source, target);
+        assertEquals(copy.hashCode(), fresh.hashCode());
+        assertEquals(copy.toString(), fresh.toString());
+        assertEquals(copy.invert(), alignment.invert());
+        assertEquals(copy.diffs(), alignment.diffs());
+        assertEquals(copy.size(), alignment.size());
+        assertEquals(source, alignment.source());
+        assertEquals(target.size(), alignment.targetSize());
+        // Source and target are copies, as they were when every alignment held a list of edits
+        alignment.source().clear();
+        alignment.target().add(-1);
+        assertEquals(source, alignment.source());
+        assertEquals(target, alignment.target());
+        assertEquals(copy.ratio(), alignment.ratio());
+    }
+
     private static class Element {
         public final String value;
 
@@ -0,0 +1,120 @@
+package io.github.manzurola.aligner.codec;
+
+import io.github.manzurola.aligner.Aligner;
+import io.github.manzurola.aligner.Alignment;
+import io.github.manzurola.aligner.edit.Edit;
+import io.github.manzurola.aligner.edit.Operation;
+import io.github.manzurola.aligner.edit.Segment;
+import io.github.manzurola.aligner.patch.Patch;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EditCodecTest {
+
+    @Test
+    void editCodecDecodesEqualEditsWithAndWithoutTokens() throws IOException {
+        List<String> source = Arrays.asList("a b c d e f g h i j k l m n o p".split(" "));
+        List<String> target = Arrays.asList("a c b d x f g h j k m n n o p q".split(" "));
+        Alignment<String> alignment = Aligner.<String>damerauLevenshtein().align(source, target);
+        Alignment<String> merged = Alignment.of(Arrays.asList(
+                Edit.of(Operation.EQUAL, Segment.of(0, source.subList(0, 4)), Segment.of(0, target.subList(0, 4))),
+                Edit.of(Operation.SUBSTITUTE, Segment.of(4, source.subList(4, 5)), Segment.of(4, target.subList(4, 5)))
+        ), 1);
+        Patch<String> patch = new Patch<>(alignment.diffs());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EditCodec.Writer<String> writer = EditCodec.of(TokenCodec.strings()).writer(Channels.newChannel(bytes));
+        writer.write(alignment);
+        writer.write(merged);
+        writer.write(patch);
+        writer.flush();
+
+        EditCodec.Reader<String> reader = EditCodec.of(TokenCodec.strings())
+                .reader(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(alignment, reader.readAlignment());
+        assertEquals(merged, reader.readAlignment());
+        assertEquals(patch.getEdits(), reader.readPatch().getEdits());
+        assertFalse(reader.hasNext());
+
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        EditCodec.Writer<String> positions = EditCodec.<String>of().writer(buffer);
+        positions.write(alignment);
+        positions.write(patch);
+        buffer.flip();
+
+        EditCodec.Reader<String> positionReader = EditCodec.<String>of().reader(buffer);
+        assertEquals(alignment.edits(), positionReader.readAlignment(source, target).edits());
+        assertEquals(patch.getEdits(), positionReader.readPatch(source, target).getEdits());
+        assertFalse(positionReader.hasNext());
+
+        // A run of equal edits takes the same few bytes whatever its length
+        List<Integer> tokens = IntStream.range(0, 100000).boxed().collect(Collectors.toList());
+        ByteBuffer small = ByteBuffer.allocate(32);
+        EditCodec.<Integer>of().writer(small).write(Aligner.<Integer>levenshtein().align(tokens, tokens));
+        small.flip();
+        assertEquals(tokens.size(), EditCodec.<Integer>of().reader(small).readAlignment(tokens, tokens).size());
+    }
+
+    @Test
+    void readingWithoutTokensOrListsConsumesNothing() throws IOException {
+        List<String> source = Arrays.asList("a", "b", "c");
+        List<String> target = Arrays.asList("a", "c", "d");
+        Alignment<String> alignment = Aligner.<String>levenshtein().align(source, target);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        EditCodec.<String>of().writer(buffer).write(alignment);
+        buffer.flip();
+
+        EditCodec.Reader<String> reader = EditCodec.<String>of().reader(buffer);
+        assertThrows(IllegalStateException.class, reader::readAlignment);
+        assertEquals(alignment.edits(), reader.readAlignment(source, target).edits());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    void corruptRunsAreRejectedBeforeTheyAllocate() {
+        List<String> tokens = Arrays.asList("a", "b");
+        int[][] runs = {
+                {0xff, 0xff, 0xff, 0xff, 0x0f, 0, 0, 1, 1},  // negative count
+                {0xff, 0xff, 0xff, 0xff, 0x07, 0, 0, 0, 0},  // endless edits of no tokens
+                {1, 1, 0, 1, 1},                             // negative source position
+                {1, 0, 0, 0xff, 0xff, 0xff, 0xff, 0x0f, 1},  // negative source size
+        };
+        for (int[] run : runs) {
+            ByteBuffer buffer = ByteBuffer.allocate(64);
+            buffer.putInt(0x45444954).put((byte) 1).put((byte) 0).put((byte) 1).putDouble(0);
+            buffer.put((byte) Operation.EQUAL.ordinal());
+            for (int b : run) {
+                buffer.put((byte) b);
+            }
+            buffer.put((byte) -1);
+            buffer.flip();
+            EditCodec.Reader<String> reader = EditCodec.<String>of().reader(buffer);
+            IOException e = assertThrows(IOException.class, () -> reader.readAlignment(tokens, tokens));
+            assertTrue(e.getMessage().startsWith("corrupt edit script"));
+        }
+    }
+
+    @Test
+    void editsOfNoTokensAreNotWritten() {
+        Alignment<String> empty = Alignment.of(Arrays.asList(
+                Edit.of(Operation.EQUAL, Segment.of(0, Arrays.asList()), Segment.of(0, Arrays.asList()))
+        ), 0);
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        assertThrows(IllegalArgumentException.class, () -> EditCodec.<String>of().writer(buffer).write(empty));
+        assertEquals(0, buffer.position());
+    }
+}
@@ -1,9 +1,16 @@
 package io.github.manzurola.aligner.edit;
 
+import io.github.manzurola.aligner.Aligner;
+import io.github.manzurola.aligner.Alignment;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 public class EditTest {
 
@@ -64,4 +71,34 @@ public class EditTest {
 
         Assertions.assertEquals("substitute", name);
     }
+
+    @Test
+    void mergeMatchesPairwiseMergeOfAdjacentEdits() {
+        Random random = new Random(47);
+        List<Integer> source = random.ints(200, 0, 6).boxed().collect(Collectors.toList());
+        List<Integer> target = random.ints(180, 0, 6).boxed().collect(Collectors.toList());
+        Alignment<Integer> alignment = Aligner.<Integer>damerauLevenshtein().align(source, target);
+        Alignment<Integer> copy = Alignment.of(new LinkedList<>(alignment.edits()), alignment.cost());
+
+        List<MergePolicy<Integer>> policies = Arrays.asList(
+                MergePolicy.diffs(),
+                MergePolicy.byOperation(Operation.DELETE, Operation.EQUAL),
+                MergePolicy.byPredicate(e -> e.source().size() <= 1)
+        );
+        for (MergePolicy<Integer> policy : policies) {
+            List<Edit<Integer>> expected = new ArrayList<>();
+            Edit<Integer> last = null;
+            for (Edit<Integer> edit : alignment.edits()) {
+                if (last != null && policy.canMerge(last, edit)) {
+                    expected.set(expected.size() - 1, expected.get(expected.size() - 1).mergeWith(edit));
+                } else {
+                    expected.add(edit);
+                }
+                last = edit;
+            }
+            Assertions.assertEquals(Alignment.of(expected, alignment.cost()), alignment.merge(policy));
+            Assertions.assertEquals(Alignment.of(expected, alignment.cost()), copy.merge(policy));
+        }
+        Assertions.assertTrue(alignment.merge(MergePolicy.diffs()).diffs().size() < alignment.diffs().size());
+    }
 }
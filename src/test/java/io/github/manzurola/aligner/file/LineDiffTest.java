@@ -0,0 +1,82 @@
+package io.github.manzurola.aligner.file;
+
+import io.github.manzurola.aligner.Aligner;
+import io.github.manzurola.aligner.Alignment;
+import io.github.manzurola.aligner.edit.Operation;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LineDiffTest {
+
+    @Test
+    void lineDiffMatchesAlignmentOfLineStrings() throws IOException {
+        Random random = new Random(43);
+        List<String> source = new ArrayList<>();
+        for (int n = 0; n < 300; n++) {
+            source.add("line " + random.nextInt(60));
+        }
+        List<String> target = new ArrayList<>(source);
+        for (int n = 0; n < 15; n++) {
+            target.set(random.nextInt(target.size()), "changed " + n);
+            target.remove(random.nextInt(target.size()));
+        }
+        Path sourceFile = Files.createTempFile("source", ".txt");
+        Path targetFile = Files.createTempFile("target", ".txt");
+        try {
+            Files.write(sourceFile, String.join("\n", source).getBytes(StandardCharsets.UTF_8));
+            Files.write(targetFile, (String.join("\r\n", target) + "\r\n").getBytes(StandardCharsets.UTF_8));
+
+            Alignment<Line> diff = LineDiff.create().diff(sourceFile, targetFile);
+            Alignment<String> expected = Aligner.<String>builder()
+                    .setTrimCommonPrefix(true)
+                    .build()
+                    .align(source, target);
+
+            assertEquals(expected.cost(), diff.cost());
+            assertEquals(expected.edits().size(), diff.edits().size());
+            for (int n = 0; n < diff.size(); n++) {
+                assertEquals(expected.edits().get(n).operation(), diff.edits().get(n).operation());
+            }
+            assertEquals(source, diff.source().stream()
+                    .map(line -> line.text(StandardCharsets.UTF_8))
+                    .collect(Collectors.toList()));
+            assertEquals(target, diff.target().stream()
+                    .map(line -> line.text(StandardCharsets.UTF_8))
+                    .collect(Collectors.toList()));
+            Line last = diff.target().get(target.size() - 1);
+            assertEquals(Files.size(targetFile) - 2, last.offset() + last.length());
+        } finally {
+            Files.delete(sourceFile);
+            Files.delete(targetFile);
+        }
+    }
+
+    @Test
+    void lineDiffTellsCollidingLinesApart() throws IOException {
+        Path sourceFile = Files.createTempFile("source", ".txt");
+        Path targetFile = Files.createTempFile("target", ".txt");
+        try {
+            // "Aa" and "BB" have the same hash
+            Files.write(sourceFile, "Aa\nsame\n".getBytes(StandardCharsets.UTF_8));
+            Files.write(targetFile, "BB\nsame\n".getBytes(StandardCharsets.UTF_8));
+
+            Alignment<Line> diff = LineDiff.create().diff(sourceFile, targetFile);
+            assertEquals(1.0, diff.cost());
+            assertEquals(Operation.SUBSTITUTE, diff.edits().get(0).operation());
+            assertEquals(Operation.EQUAL, diff.edits().get(1).operation());
+        } finally {
+            Files.delete(sourceFile);
+            Files.delete(targetFile);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.manzurola.aligner.search;
+
+import io.github.manzurola.aligner.Aligner;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BkTreeTest {
+
+    @Test
+    void bkTreeQueriesMatchExhaustiveSearchAfterRoundTrip() throws IOException {
+        Random random = new Random(29);
+        List<List<Integer>> lists = new ArrayList<>();
+        for (int n = 0; n < 150; n++) {
+            lists.add(random.ints(random.nextInt(15), 0, 5).boxed().collect(Collectors.toList()));
+        }
+        List<Integer> query = random.ints(8, 0, 5).boxed().collect(Collectors.toList());
+        Aligner<Integer> aligner = Aligner.levenshtein();
+        BkTree<Integer> tree = BkTree.of(aligner, lists);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tree.write(out, DataOutput::writeInt);
+        BkTree<Integer> read = BkTree.read(new ByteArrayInputStream(out.toByteArray()), aligner, DataInput::readInt);
+
+        List<Integer> byCost = IntStream.range(0, lists.size()).boxed()
+                .sorted(Comparator.comparingDouble((Integer n) -> aligner.cost(query, lists.get(n))))
+                .collect(Collectors.toList());
+        List<Integer> within = byCost.stream()
+                .filter(n -> aligner.cost(query, lists.get(n)) <= 4)
+                .collect(Collectors.toList());
+
+        for (BkTree<Integer> t : Arrays.asList(tree, read)) {
+            assertEquals(within, indices(t.within(query, 4)));
+            assertEquals(byCost.subList(0, 7), indices(t.nearest(query, 7)));
+        }
+    }
+
+    private static <T> List<Integer> indices(List<Match<T>> matches) {
+        return matches.stream().map(Match::index).collect(Collectors.toList());
+    }
+}
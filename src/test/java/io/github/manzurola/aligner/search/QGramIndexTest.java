@@ -0,0 +1,71 @@
+package io.github.manzurola.aligner.search;
+
+import io.github.manzurola.aligner.Aligner;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QGramIndexTest {
+
+    @Test
+    void qGramCandidatesIncludeEveryListWithinCost() {
+        Random random = new Random(31);
+        List<Integer> query = random.ints(10, 0, 4).boxed().collect(Collectors.toList());
+        List<List<Integer>> lists = new ArrayList<>();
+        for (int n = 0; n < 300; n++) {
+            List<Integer> list = new ArrayList<>(query);
+            for (int edits = random.nextInt(6); edits > 0 && !list.isEmpty(); edits--) {
+                int i = random.nextInt(list.size());
+                switch (random.nextInt(4)) {
+                    case 0: list.remove(i); break;
+                    case 1: list.add(i, random.nextInt(4)); break;
+                    case 2: list.set(i, random.nextInt(4)); break;
+                    default: if (i > 0) Collections.swap(list, i - 1, i);
+                }
+            }
+            lists.add(list);
+        }
+        Aligner<Integer> levenshtein = Aligner.levenshtein();
+        Aligner<Integer> damerau = Aligner.damerauLevenshtein();
+
+        for (int q = 1; q <= 3; q++) {
+            QGramIndex<Integer> plain = QGramIndex.of(q, Function.identity());
+            QGramIndex<Integer> transposing = QGramIndex.of(q, Function.identity(), true);
+            lists.forEach(plain::add);
+            lists.forEach(transposing::add);
+            for (int k = 0; k <= 3; k++) {
+                List<Integer> expected = new ArrayList<>();
+                List<Integer> expectedTransposing = new ArrayList<>();
+                for (int n = 0; n < lists.size(); n++) {
+                    if (levenshtein.cost(query, lists.get(n)) <= k) {
+                        expected.add(n);
+                    }
+                    if (damerau.cost(query, lists.get(n)) <= k) {
+                        expectedTransposing.add(n);
+                    }
+                }
+                List<Integer> candidates = IntStream.of(plain.candidates(query, k)).boxed()
+                        .collect(Collectors.toList());
+                List<Integer> transposingCandidates = IntStream.of(transposing.candidates(query, k)).boxed()
+                        .collect(Collectors.toList());
+                assertTrue(candidates.containsAll(expected));
+                assertTrue(transposingCandidates.containsAll(expectedTransposing));
+                assertEquals(expected, indices(plain.search(query, k, levenshtein)).stream().sorted()
+                        .collect(Collectors.toList()));
+            }
+        }
+    }
+
+    private static <T> List<Integer> indices(List<Match<T>> matches) {
+        return matches.stream().map(Match::index).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.manzurola.aligner.search;
+
+import io.github.manzurola.aligner.Aligner;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SearchTest {
+
+    @Test
+    void searchFindsSameTopKAsExhaustiveAlignment() {
+        Random random = new Random(23);
+        List<Integer> query = random.ints(12, 0, 6).boxed().collect(Collectors.toList());
+        List<List<Integer>> candidates = new ArrayList<>();
+        for (int n = 0; n < 200; n++) {
+            candidates.add(random.ints(random.nextInt(20), 0, 6).boxed().collect(Collectors.toList()));
+        }
+        Aligner<Integer> aligner = Aligner.levenshtein();
+
+        List<Integer> byCost = IntStream.range(0, candidates.size()).boxed()
+                .sorted(Comparator.comparingDouble((Integer n) -> aligner.cost(query, candidates.get(n))))
+                .limit(5)
+                .collect(Collectors.toList());
+        List<Integer> byRatio = IntStream.range(0, candidates.size()).boxed()
+                .sorted(Comparator.comparingDouble((Integer n) -> -aligner.align(query, candidates.get(n)).ratio()))
+                .limit(5)
+                .collect(Collectors.toList());
+
+        Search<Integer> bounded = Search.builder(aligner)
+                .setKey(Function.identity())
+                .setMinEditCost(1)
+                .build();
+        Search<Integer> ratio = Search.builder(aligner)
+                .setMinEditCost(1)
+                .setRanking(Search.Ranking.RATIO)
+                .build();
+
+        assertEquals(byCost, indices(bounded.top(query, candidates, 5)));
+        assertEquals(byCost, indices(Search.builder(aligner).build().top(query, candidates, 5)));
+        assertEquals(byRatio, indices(ratio.top(query, candidates, 5)));
+    }
+
+    private static <T> List<Integer> indices(List<Match<T>> matches) {
+        return matches.stream().map(Match::index).collect(Collectors.toList());
+    }
+}